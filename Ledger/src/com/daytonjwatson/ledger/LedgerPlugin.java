@@ -4,7 +4,9 @@ import com.daytonjwatson.ledger.config.ConfigManager;
 import com.daytonjwatson.ledger.economy.BankService;
 import com.daytonjwatson.ledger.economy.DeathPenaltyListener;
 import com.daytonjwatson.ledger.economy.MoneyService;
+import com.daytonjwatson.ledger.economy.PlayerSessionListener;
 import com.daytonjwatson.ledger.farming.CropHarvestListener;
+import com.daytonjwatson.ledger.farming.SoilChunkListener;
 import com.daytonjwatson.ledger.farming.SoilFatigueService;
 import com.daytonjwatson.ledger.gui.HubCommand;
 import com.daytonjwatson.ledger.gui.GuiListener;
@@ -32,6 +34,9 @@ import com.daytonjwatson.ledger.spawn.AnimalSellService;
 import com.daytonjwatson.ledger.spawn.SellService;
 import com.daytonjwatson.ledger.spawn.SpawnInteractionListener;
 import com.daytonjwatson.ledger.spawn.SpawnRegionService;
+import com.daytonjwatson.ledger.storage.FileLedgerStore;
+import com.daytonjwatson.ledger.storage.LedgerStore;
+import com.daytonjwatson.ledger.storage.SqliteLedgerStore;
 import com.daytonjwatson.ledger.tools.RepairService;
 import com.daytonjwatson.ledger.tools.AutoSmeltListener;
 import com.daytonjwatson.ledger.tools.SilkTouchMarkListener;
@@ -41,11 +46,16 @@ import com.daytonjwatson.ledger.tools.EnchantBlockListener;
 import com.daytonjwatson.ledger.tools.ToolVendorCommand;
 import com.daytonjwatson.ledger.tools.ToolVendorService;
 import com.daytonjwatson.ledger.util.AtomicFileWriter;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
 import com.daytonjwatson.ledger.upgrades.UpgradeCommand;
 import com.daytonjwatson.ledger.upgrades.UpgradeService;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.sql.SQLException;
+
 public class LedgerPlugin extends JavaPlugin {
 
 	private ConfigManager configManager;
@@ -66,27 +76,37 @@ public class LedgerPlugin extends JavaPlugin {
 	private SoilFatigueService soilFatigueService;
 	private AnimalSellService animalSellService;
 	private SellService sellService;
+	private DepletionListener depletionListener;
 	private SellValidator sellValidator;
 	private GuiManager guiManager;
+	private PersistenceWriter persistenceWriter;
+	private LedgerStore ledgerStore;
 	
 	@Override
 	public void onEnable() {
 		AtomicFileWriter.ensureDirectory(getDataFolder());
+		this.persistenceWriter = new PersistenceWriter(this);
 		this.configManager = new ConfigManager(this);
 		configManager.loadAll();
+		this.ledgerStore = openStore();
+		getLogger().info("Using " + ledgerStore.getName() + " storage.");
 
 		this.spawnRegionService = new SpawnRegionService(configManager);
-		this.marketState = new MarketState();
-		this.marketStorage = new MarketStorageYaml(this, marketState, configManager);
+		this.marketState = new MarketState(configManager.getConfig().getDouble("market.halfLifeHours", 72.0),
+			configManager.getConfig().getDouble("mob.halfLifeHours", 48.0));
+		this.marketStorage = new MarketStorageYaml(this, marketState, configManager, persistenceWriter, ledgerStore);
 		marketStorage.load();
 
-		this.moneyService = new MoneyService(this, configManager);
+		this.moneyService = new MoneyService(this, configManager, ledgerStore, persistenceWriter);
 		moneyService.load();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			moneyService.markOnline(player.getUniqueId());
+		}
 
 		this.upgradeService = new UpgradeService(configManager, moneyService, spawnRegionService);
 		this.silkTouchMarkService = new SilkTouchMarkService(this);
 		this.scarcityWindowService = new ScarcityWindowService(configManager);
-		this.soilFatigueService = new SoilFatigueService(this, configManager);
+		this.soilFatigueService = new SoilFatigueService(this, configManager, persistenceWriter, ledgerStore);
 		soilFatigueService.load();
 		this.toolMetaService = new ToolMetaService(this);
 		this.marketService = new MarketService(configManager, marketState, upgradeService, silkTouchMarkService, scarcityWindowService, soilFatigueService);
@@ -98,6 +118,7 @@ public class LedgerPlugin extends JavaPlugin {
 		this.animalSellService = new AnimalSellService(configManager, mobPayoutService, moneyService);
 		this.sellValidator = new SellValidator(marketService, toolMetaService);
 		this.loreValueService = new LoreValueService(this, configManager, marketService, sellValidator);
+		upgradeService.addInvalidationListener(loreValueService::refreshModifiers);
 		this.sellService = new SellService(marketService, moneyService, sellValidator);
 		this.guiManager = new GuiManager(spawnRegionService);
 		guiManager.register(new HubMenu(guiManager));
@@ -108,10 +129,13 @@ public class LedgerPlugin extends JavaPlugin {
 		guiManager.register(new UpgradesMenu(guiManager, upgradeService, moneyService));
 
 		Bukkit.getPluginManager().registerEvents(new SpawnInteractionListener(spawnRegionService, guiManager, configManager), this);
+		Bukkit.getPluginManager().registerEvents(new PlayerSessionListener(moneyService, upgradeService), this);
 		Bukkit.getPluginManager().registerEvents(new DeathPenaltyListener(configManager, moneyService, upgradeService), this);
 		Bukkit.getPluginManager().registerEvents(new MobKillListener(configManager, mobPayoutService, moneyService), this);
-		Bukkit.getPluginManager().registerEvents(new DepletionListener(marketService), this);
+		this.depletionListener = new DepletionListener(marketService);
+		Bukkit.getPluginManager().registerEvents(depletionListener, this);
 		Bukkit.getPluginManager().registerEvents(new CropHarvestListener(soilFatigueService), this);
+		Bukkit.getPluginManager().registerEvents(new SoilChunkListener(soilFatigueService), this);
 		Bukkit.getPluginManager().registerEvents(new AnimalSellListener(animalSellService), this);
 		Bukkit.getPluginManager().registerEvents(loreValueService, this);
 		Bukkit.getPluginManager().registerEvents(new EnchantBlockListener(), this);
@@ -122,27 +146,54 @@ public class LedgerPlugin extends JavaPlugin {
 		getCommand("sell").setExecutor(new MenuCommand(guiManager, MenuId.SELL));
 		getCommand("bank").setExecutor(new MenuCommand(guiManager, MenuId.BANK));
 		getCommand("balance").setExecutor(new com.daytonjwatson.ledger.economy.BalanceCommand(moneyService));
+		getCommand("baltop").setExecutor(new com.daytonjwatson.ledger.economy.BaltopCommand(moneyService));
 		getCommand("tool").setExecutor(new ToolVendorCommand(spawnRegionService, toolVendorService, repairService));
 		getCommand("tools").setExecutor(new MenuCommand(guiManager, MenuId.TOOLS));
 		getCommand("repair").setExecutor(new MenuCommand(guiManager, MenuId.REPAIR));
-		getCommand("ledger").setExecutor(new HubCommand(guiManager, configManager, marketService, mobPayoutService, upgradeService, moneyService));
+		getCommand("ledger").setExecutor(new HubCommand(this, persistenceWriter, guiManager, configManager, marketService, mobPayoutService,
+			upgradeService, moneyService, marketStorage, soilFatigueService));
 		UpgradeCommand upgradeCommand = new UpgradeCommand(upgradeService);
 		getCommand("upgrade").setExecutor(upgradeCommand);
 		getCommand("upgrades").setExecutor(new MenuCommand(guiManager, MenuId.UPGRADES));
 
 		new InventoryScanScheduler(this, loreValueService).start();
 
-		Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
-			moneyService.save();
-			marketStorage.save();
-			soilFatigueService.save();
+		Bukkit.getScheduler().runTaskTimer(this, () -> {
+			long now = System.currentTimeMillis();
+			marketState.tickDecay(now);
+			depletionListener.flush();
+			soilFatigueService.drainHarvests();
+			marketService.tickPrices(now);
+		}, 1L, 1L);
+
+		Bukkit.getScheduler().runTaskTimerAsynchronously(this, moneyService::flushJournal, 1L, 1L);
+		Bukkit.getScheduler().runTaskTimer(this, () -> {
+			MarketState.Snapshot marketSnapshot = marketStorage.snapshot();
+			SoilFatigueService.Snapshot soilSnapshot = soilFatigueService.snapshot();
+			Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+				marketStorage.save(marketSnapshot);
+				soilFatigueService.save(soilSnapshot);
+			});
 		}, 20L * 60, 20L * 60);
+		long moneySnapshotTicks = Math.max(20L * 60, (long) (configManager.getConfig().getDouble("economy.journal.snapshotSeconds", 900.0) * 20L));
+		Bukkit.getScheduler().runTaskTimer(this, () -> {
+			MoneyService.Snapshot moneySnapshot = moneyService.snapshot();
+			Bukkit.getScheduler().runTaskAsynchronously(this, () -> moneyService.save(moneySnapshot));
+		}, moneySnapshotTicks, moneySnapshotTicks);
+		long compactTicks = Math.max(20L * 60, (long) (configManager.getConfig().getDouble("economy.persistence.compactMinutes", 60.0) * 20L * 60));
+		Bukkit.getScheduler().runTaskTimerAsynchronously(this, moneyService::compact, compactTicks, compactTicks);
+		Bukkit.getScheduler().runTaskTimer(this, moneyService::evictIdle, 20L * 30, 20L * 30);
 	}
 
 	@Override
 	public void onDisable() {
 		if (moneyService != null) {
 			moneyService.save();
+			moneyService.saveWealthIndex();
+			moneyService.closeJournal();
+		}
+		if (depletionListener != null) {
+			depletionListener.flush();
 		}
 		if (marketStorage != null) {
 			marketStorage.save();
@@ -150,5 +201,31 @@ public class LedgerPlugin extends JavaPlugin {
 		if (soilFatigueService != null) {
 			soilFatigueService.save();
 		}
+		if (ledgerStore != null) {
+			ledgerStore.close();
+		}
+		if (persistenceWriter != null) {
+			persistenceWriter.close();
+		}
+	}
+
+	private LedgerStore openStore() {
+		FileLedgerStore fileStore = new FileLedgerStore(this, persistenceWriter);
+		String backend = configManager.getConfig().getString("storage.backend", "file");
+		if (!"sqlite".equalsIgnoreCase(backend)) {
+			return fileStore;
+		}
+		File databaseFile = new File(getDataFolder(), configManager.getConfig().getString("storage.sqlite.file", "ledger.db"));
+		try {
+			SqliteLedgerStore sqliteStore = new SqliteLedgerStore(this, databaseFile);
+			if (sqliteStore.isEmpty() && !fileStore.isEmpty()) {
+				getLogger().info("Copying file storage into " + databaseFile.getName() + ".");
+				sqliteStore.copyFrom(fileStore);
+			}
+			return sqliteStore;
+		} catch (SQLException e) {
+			getLogger().warning("Unable to open " + databaseFile.getName() + ", falling back to file storage: " + e.getMessage());
+			return fileStore;
+		}
 	}
 }
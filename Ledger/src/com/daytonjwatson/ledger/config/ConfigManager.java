@@ -91,12 +91,18 @@ public class ConfigManager {
 		YamlConfiguration yaml = new YamlConfiguration();
 		yaml.set("economy.loss.base", 0.30);
 		yaml.set("economy.loss.floor", 0.10);
+		yaml.set("economy.journal.snapshotSeconds", 900.0);
+		yaml.set("economy.persistence.compactMinutes", 60.0);
+		yaml.set("economy.cache.evictGraceSeconds", 300.0);
+		yaml.set("storage.backend", "file");
+		yaml.set("storage.sqlite.file", "ledger.db");
 		yaml.set("market.sigma", 1.0);
 		yaml.set("market.halfLifeHours", 72.0);
 		yaml.set("market.minFactor", 0.20);
 		yaml.set("market.maxFactor", 2.50);
 		yaml.set("market.depletionBaseline", 50000.0);
 		yaml.set("market.scarcityRho", 0.25);
+		yaml.set("market.priceBoardRefreshSeconds", 5.0);
 		yaml.set("market.windows.nightMultiplier", 1.25);
 		yaml.set("market.windows.rainMultiplier", 1.20);
 		yaml.set("market.windows.depthMultiplier", 1.30);
@@ -116,6 +122,7 @@ public class ConfigManager {
 		yaml.set("farming.fatigue.minMultiplier", 0.25);
 		yaml.set("farming.fatigue.stackStep", 0.05);
 		yaml.set("farming.fatigue.pruneDays", 14.0);
+		yaml.set("farming.fatigue.harvestsPerTick", 2000);
 		writeYaml(file, yaml);
 	}
 
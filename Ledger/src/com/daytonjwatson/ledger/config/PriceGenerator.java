@@ -3,12 +3,12 @@ package com.daytonjwatson.ledger.config;
 import com.daytonjwatson.ledger.market.ItemTagService;
 import com.daytonjwatson.ledger.market.PriceBandTag;
 import com.daytonjwatson.ledger.util.ItemKeyUtil;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 public class PriceGenerator {
@@ -367,13 +368,13 @@ public class PriceGenerator {
 		return yaml;
 	}
 
-	public void write(File file, YamlConfiguration existing) throws IOException {
+	public CompletableFuture<Void> write(PersistenceWriter writer, File file, YamlConfiguration existing) {
 		YamlConfiguration generated = generate();
 		if (existing != null && existing.getConfigurationSection("mobPrices") != null) {
 			generated.set("mobPrices", existing.get("mobPrices"));
 		}
 		String content = generated.saveToString();
-		com.daytonjwatson.ledger.util.AtomicFileWriter.writeAtomically(file, content.getBytes(StandardCharsets.UTF_8));
+		return writer.submit(file, content.getBytes(StandardCharsets.UTF_8));
 	}
 
 	public Map<PriceBandTag, PriceSummary> summarize(YamlConfiguration yaml) {
@@ -4,18 +4,24 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import com.daytonjwatson.ledger.util.ItemKeyUtil;
+import org.bukkit.Material;
 
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 public class PriceTable {
 	private final Map<String, PriceEntry> entries = new HashMap<>();
+	private final Map<Material, PriceEntry> materialEntries;
 
 	public PriceTable(YamlConfiguration yaml, YamlConfiguration overrides) {
 		loadSection(yaml, "prices");
 		loadSection(yaml, "mobPrices");
 		applyOverrides(overrides);
+		this.materialEntries = Collections.unmodifiableMap(compileMaterialEntries());
 	}
 
 	public PriceTable(YamlConfiguration yaml) {
@@ -98,6 +104,17 @@ public class PriceTable {
 		return new PriceEntry(normalizedKey, base, cap, minFactor, maxFactor, sigma, baseline, rho, tag, unsellable);
 	}
 
+	private Map<Material, PriceEntry> compileMaterialEntries() {
+		Map<Material, PriceEntry> compiled = new EnumMap<>(Material.class);
+		for (PriceEntry entry : entries.values()) {
+			Material material = Material.matchMaterial(entry.key());
+			if (material != null) {
+				compiled.put(material, entry);
+			}
+		}
+		return compiled;
+	}
+
 	public Map<String, PriceEntry> getEntries() {
 		return Collections.unmodifiableMap(entries);
 	}
@@ -110,6 +127,17 @@ public class PriceTable {
 		return entries.get(normalized);
 	}
 
+	public Set<Material> getPricedMaterials() {
+		return materialEntries.keySet();
+	}
+
+	public PriceEntry getEntry(Material material) {
+		if (material == null) {
+			return null;
+		}
+		return materialEntries.get(material);
+	}
+
 	public static class PriceEntry {
 		private final String key;
 		private final double base;
@@ -120,6 +148,7 @@ public class PriceTable {
 		private final double baseline;
 		private final double rho;
 		private final String tag;
+		private final String bandTag;
 		private final boolean unsellable;
 
 		public PriceEntry(String key, double base, double cap, double minFactor, double maxFactor, double sigma,
@@ -133,6 +162,7 @@ public class PriceTable {
 			this.baseline = baseline;
 			this.rho = rho;
 			this.tag = tag;
+			this.bandTag = tag == null ? "" : tag.trim().toUpperCase(Locale.ROOT);
 			this.unsellable = unsellable;
 		}
 
@@ -176,6 +206,10 @@ public class PriceTable {
 			return tag;
 		}
 
+		public String getBandTag() {
+			return bandTag;
+		}
+
 		public boolean isUnsellable() {
 			return unsellable;
 		}
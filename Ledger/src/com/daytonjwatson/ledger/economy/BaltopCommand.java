@@ -0,0 +1,61 @@
+package com.daytonjwatson.ledger.economy;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BaltopCommand implements CommandExecutor {
+	private static final int PAGE_SIZE = 10;
+	private final MoneyService moneyService;
+
+	public BaltopCommand(MoneyService moneyService) {
+		this.moneyService = moneyService;
+	}
+
+	@Override
+	public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+		int page = 1;
+		if (args.length > 0) {
+			try {
+				page = Math.max(1, Integer.parseInt(args[0]));
+			} catch (NumberFormatException ex) {
+				sender.sendMessage(ChatColor.YELLOW + "Usage: /baltop [page]");
+				return true;
+			}
+		}
+		int ranked = moneyService.getRankedPlayerCount();
+		int pages = Math.max(1, (ranked + PAGE_SIZE - 1) / PAGE_SIZE);
+		page = Math.min(page, pages);
+		int offset = (page - 1) * PAGE_SIZE;
+		List<WealthIndex.Entry> entries = moneyService.getWealthPage(offset, PAGE_SIZE);
+		sender.sendMessage(ChatColor.GOLD + "Top balances (page " + page + "/" + pages + "):");
+		if (entries.isEmpty()) {
+			sender.sendMessage(ChatColor.GRAY + "No balances recorded yet.");
+		}
+		for (int i = 0; i < entries.size(); i++) {
+			WealthIndex.Entry entry = entries.get(i);
+			sender.sendMessage(ChatColor.YELLOW + "#" + (offset + i + 1) + " " + ChatColor.WHITE + getName(entry.uuid())
+				+ ChatColor.GRAY + " - " + ChatColor.GOLD + "$" + entry.total());
+		}
+		if (sender instanceof Player player) {
+			int rank = moneyService.getWealthRank(player.getUniqueId());
+			if (rank > 0) {
+				sender.sendMessage(ChatColor.GRAY + "Your rank: #" + rank + " of " + ranked);
+			}
+		}
+		return true;
+	}
+
+	private String getName(UUID uuid) {
+		OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+		String name = player == null ? null : player.getName();
+		return name != null ? name : uuid.toString();
+	}
+}
@@ -16,13 +16,8 @@ public class BankService {
 		if (!spawnRegionService.isInSpawn(player.getLocation())) {
 			return false;
 		}
-		long carried = moneyService.getCarried(player.getUniqueId());
-		long depositAmount = amount >= 0 ? Math.min(amount, carried) : carried;
-		if (depositAmount <= 0) {
-			return false;
-		}
-		moneyService.removeCarried(player, depositAmount);
-		moneyService.addBanked(player, depositAmount);
-		return true;
+		long moved = moneyService.transferAvailable(player.getUniqueId(), MoneyService.Account.CARRIED, MoneyService.Account.BANKED,
+			amount >= 0 ? amount : -1L);
+		return moved > 0;
 	}
 }
@@ -21,8 +21,7 @@ public class DeathPenaltyListener implements Listener {
 	public void onDeath(PlayerDeathEvent event) {
 		double baseLoss = configManager.getConfig().getDouble("economy.loss.base", 0.30);
 		double floor = configManager.getConfig().getDouble("economy.loss.floor", 0.10);
-		int insuranceLevel = upgradeService.getLevel(event.getEntity().getUniqueId(), "insurance");
-		double adjusted = baseLoss - (0.02 * insuranceLevel);
+		double adjusted = baseLoss - upgradeService.getModifiers(event.getEntity().getUniqueId()).getInsuranceReduction();
 		double effectiveLoss = Math.max(floor, adjusted);
 		moneyService.applyDeathLoss(event.getEntity(), effectiveLoss);
 	}
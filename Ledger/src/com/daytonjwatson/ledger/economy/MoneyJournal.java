@@ -0,0 +1,318 @@
+package com.daytonjwatson.ledger.economy;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+public class MoneyJournal {
+	public static final byte CARRIED_DELTA = 1;
+	public static final byte BANKED_DELTA = 2;
+	public static final byte UPGRADE_LEVEL = 3;
+	public static final byte SPECIALIZATION = 4;
+	private static final String PREFIX = "money-";
+	private static final String SUFFIX = ".journal";
+	private static final int MAX_RECORD_BYTES = 64 * 1024;
+	private final JavaPlugin plugin;
+	private final File directory;
+	private final Object ioLock = new Object();
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private List<SealedSegment> sealed = new ArrayList<>();
+	private FileChannel channel;
+	private long segmentStart;
+	private long lastSequence;
+	private boolean damaged;
+	private boolean truncated;
+
+	public MoneyJournal(JavaPlugin plugin) {
+		this.plugin = plugin;
+		this.directory = new File(plugin.getDataFolder(), "journal");
+	}
+
+	public synchronized long replay(long snapshotSequence, RecordConsumer consumer) {
+		lastSequence = snapshotSequence;
+		int applied = 0;
+		boolean halted = false;
+		int skipped = 0;
+		for (File file : listSegments()) {
+			if (halted) {
+				setAside(file, ".skipped");
+				skipped++;
+				continue;
+			}
+			damaged = false;
+			truncated = false;
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				while (true) {
+					Record record = readRecord(in, file);
+					if (record == null) {
+						break;
+					}
+					if (record.sequence() <= lastSequence) {
+						continue;
+					}
+					if (applied > 0 && record.sequence() != lastSequence + 1) {
+						plugin.getLogger().severe("Money journal gap in " + file.getName() + ": expected sequence " + (lastSequence + 1)
+							+ " but found " + record.sequence() + ".");
+						damaged = true;
+						break;
+					}
+					consumer.accept(record);
+					lastSequence = record.sequence();
+					applied++;
+				}
+			} catch (IOException e) {
+				plugin.getLogger().warning("Failed to replay " + file.getName() + ": " + e.getMessage());
+				damaged = true;
+			}
+			if (damaged) {
+				halted = true;
+				setAside(file, ".damaged");
+			}
+		}
+		if (halted && (skipped > 0 || !truncated)) {
+			plugin.getLogger().severe("Money journal replay stopped at sequence " + lastSequence
+				+ "; later segments were set aside. Balances may be missing changes, restore from a snapshot before trusting them.");
+		}
+		if (applied > 0) {
+			plugin.getLogger().info("Replayed " + applied + " money journal records.");
+		}
+		segmentStart = lastSequence + 1;
+		return lastSequence;
+	}
+
+	private void setAside(File file, String suffix) {
+		if (!file.renameTo(new File(directory, file.getName() + suffix))) {
+			plugin.getLogger().warning("Unable to set aside money journal segment: " + file.getName());
+		}
+	}
+
+	public synchronized void append(byte type, UUID uuid, long value, String text) {
+		long sequence = ++lastSequence;
+		try {
+			ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(48);
+			DataOutputStream body = new DataOutputStream(bodyBytes);
+			body.writeLong(sequence);
+			body.writeByte(type);
+			body.writeLong(uuid.getMostSignificantBits());
+			body.writeLong(uuid.getLeastSignificantBits());
+			body.writeLong(value);
+			body.writeBoolean(text != null);
+			if (text != null) {
+				body.writeUTF(text);
+			}
+			byte[] bytes = bodyBytes.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			DataOutputStream out = new DataOutputStream(pending);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			out.writeInt((int) crc.getValue());
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to encode money journal record: " + e.getMessage());
+		}
+	}
+
+	public synchronized void advanceTo(long sequence) {
+		if (sequence > lastSequence) {
+			lastSequence = sequence;
+			segmentStart = sequence + 1;
+		}
+	}
+
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+	public synchronized long rotate() {
+		sealed.add(new SealedSegment(channel, segmentStart, pending.toByteArray()));
+		pending.reset();
+		channel = null;
+		segmentStart = lastSequence + 1;
+		return lastSequence;
+	}
+
+	public void flush() {
+		synchronized (ioLock) {
+			List<SealedSegment> segments;
+			ByteArrayOutputStream bytes;
+			FileChannel target;
+			long start;
+			synchronized (this) {
+				segments = sealed;
+				sealed = new ArrayList<>();
+				bytes = pending;
+				pending = new ByteArrayOutputStream();
+				target = channel;
+				start = segmentStart;
+			}
+			try {
+				for (SealedSegment segment : segments) {
+					FileChannel sealedTarget = segment.channel();
+					if (segment.bytes().length > 0) {
+						if (sealedTarget == null) {
+							sealedTarget = open(segment.start());
+						}
+						write(sealedTarget, segment.bytes());
+					}
+					if (sealedTarget != null) {
+						sealedTarget.close();
+					}
+				}
+				if (bytes.size() == 0) {
+					return;
+				}
+				if (target == null) {
+					target = open(start);
+					if (!adopt(target, start)) {
+						write(target, bytes.toByteArray());
+						target.close();
+						return;
+					}
+				}
+				write(target, bytes.toByteArray());
+			} catch (IOException e) {
+				plugin.getLogger().warning("Failed to flush money journal: " + e.getMessage());
+			}
+		}
+	}
+
+	public void discardThrough(long sequence) {
+		synchronized (ioLock) {
+			flush();
+			for (File file : listSegments()) {
+				long start = parseStart(file);
+				if (start <= sequence && !file.delete()) {
+					plugin.getLogger().warning("Unable to delete money journal segment: " + file.getName());
+				}
+			}
+		}
+	}
+
+	public void close() {
+		synchronized (ioLock) {
+			flush();
+			FileChannel open;
+			synchronized (this) {
+				open = channel;
+				channel = null;
+			}
+			if (open != null) {
+				try {
+					open.close();
+				} catch (IOException e) {
+					plugin.getLogger().warning("Failed to close money journal: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private synchronized boolean adopt(FileChannel target, long start) {
+		if (channel != null || segmentStart != start) {
+			return false;
+		}
+		channel = target;
+		return true;
+	}
+
+	private void write(FileChannel target, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			target.write(buffer);
+		}
+		target.force(false);
+	}
+
+	private FileChannel open(long start) throws IOException {
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Unable to create " + directory.getName());
+		}
+		File file = new File(directory, PREFIX + String.format("%020d", start) + SUFFIX);
+		return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private List<File> listSegments() {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+		if (files == null) {
+			return List.of();
+		}
+		List<File> segments = new ArrayList<>(Arrays.asList(files));
+		segments.removeIf(file -> parseStart(file) < 0);
+		segments.sort(Comparator.comparingLong(MoneyJournal::parseStart));
+		return segments;
+	}
+
+	private static long parseStart(File file) {
+		String name = file.getName();
+		try {
+			return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+		} catch (NumberFormatException | IndexOutOfBoundsException ex) {
+			return -1L;
+		}
+	}
+
+	private Record readRecord(DataInputStream in, File file) throws IOException {
+		int length;
+		try {
+			length = in.readInt();
+		} catch (EOFException ex) {
+			return null;
+		}
+		if (length <= 0 || length > MAX_RECORD_BYTES) {
+			plugin.getLogger().warning("Corrupt record length in " + file.getName() + ", stopping replay of this segment.");
+			damaged = true;
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		int crcValue;
+		try {
+			in.readFully(bytes);
+			crcValue = in.readInt();
+		} catch (EOFException ex) {
+			plugin.getLogger().warning("Truncated record at end of " + file.getName() + ", ignoring it.");
+			damaged = true;
+			truncated = true;
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		if ((int) crc.getValue() != crcValue) {
+			plugin.getLogger().warning("Checksum mismatch in " + file.getName() + ", stopping replay of this segment.");
+			damaged = true;
+			return null;
+		}
+		DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes));
+		long sequence = body.readLong();
+		byte type = body.readByte();
+		UUID uuid = new UUID(body.readLong(), body.readLong());
+		long value = body.readLong();
+		String text = body.readBoolean() ? body.readUTF() : null;
+		return new Record(sequence, type, uuid, value, text);
+	}
+
+	public record Record(long sequence, byte type, UUID uuid, long value, String text) {
+	}
+
+	public interface RecordConsumer {
+		void accept(Record record);
+	}
+
+	private record SealedSegment(FileChannel channel, long start, byte[] bytes) {
+	}
+}
@@ -1,170 +1,426 @@
 package com.daytonjwatson.ledger.economy;
 
 import com.daytonjwatson.ledger.config.ConfigManager;
-import com.daytonjwatson.ledger.util.AtomicFileWriter;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.daytonjwatson.ledger.storage.LedgerStore;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class MoneyService {
 	private final JavaPlugin plugin;
 	private final ConfigManager configManager;
 	private final Map<UUID, PlayerBalance> balances = new ConcurrentHashMap<>();
-	private final File playersFile;
+	private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+	private final Map<UUID, Long> departed = new ConcurrentHashMap<>();
+	private final AtomicInteger savesInFlight = new AtomicInteger();
+	private final ReentrantReadWriteLock mutationLock = new ReentrantReadWriteLock();
+	private volatile UpgradeLayout upgradeLayout = UpgradeLayout.EMPTY;
+	private final LedgerStore store;
+	private final PlayerYaml playerYaml;
+	private final MoneyJournal journal;
+	private final WealthIndex wealthIndex = new WealthIndex();
 
-	public MoneyService(JavaPlugin plugin, ConfigManager configManager) {
+	public MoneyService(JavaPlugin plugin, ConfigManager configManager, LedgerStore store, PersistenceWriter writer) {
 		this.plugin = plugin;
 		this.configManager = configManager;
-		this.playersFile = new File(plugin.getDataFolder(), "players.yml");
+		this.store = store;
+		this.playerYaml = new PlayerYaml(plugin, writer);
+		this.journal = new MoneyJournal(plugin);
 	}
 
 	public void load() {
-		YamlConfiguration yaml = loadWithBackup();
-		if (yaml == null) {
-			return;
+		Map<UUID, Long> totals = store.readTotals();
+		if (totals != null) {
+			totals.forEach(wealthIndex::update);
+		} else {
+			store.forEachPlayer((uuid, values) -> wealthIndex.update(uuid, values.carried() + values.banked()));
+		}
+		long legacySequence = playerYaml.loadLegacy((uuid, values) -> {
+			if (store.readPlayer(uuid) == null) {
+				balances.put(uuid, fromValues(values));
+				wealthIndex.update(uuid, values.carried() + values.banked());
+				dirty.add(uuid);
+			}
+		});
+		Map<UUID, Long> sequences = new HashMap<>();
+		journal.replay(Math.max(0L, legacySequence), record -> {
+			long stored = sequences.computeIfAbsent(record.uuid(), store::playerSequence);
+			if (record.sequence() > Math.max(stored, legacySequence)) {
+				applyJournalRecord(record);
+			}
+		});
+		journal.advanceTo(Math.max(legacySequence, store.highestSequence()));
+		boolean persisted = dirty.isEmpty() || save(snapshot());
+		if (persisted && legacySequence >= 0L) {
+			playerYaml.retireLegacy();
+		}
+	}
+
+	private PlayerBalance fromValues(BalanceValues values) {
+		PlayerBalance balance = new PlayerBalance();
+		balance.carried.set(values.carried());
+		balance.banked.set(values.banked());
+		balance.specializationChoice = values.specializationChoice();
+		values.upgrades().forEach(balance::setUpgrade);
+		return balance;
+	}
+
+	public void save() {
+		save(snapshot());
+	}
+
+	public void saveWealthIndex() {
+		if (dirty.isEmpty()) {
+			store.writeTotals(wealthIndex.totals());
 		}
-		ConfigurationSection playersSection = yaml.getConfigurationSection("players");
-		if (playersSection == null) {
+	}
+
+	private void applyJournalRecord(MoneyJournal.Record record) {
+		PlayerBalance balance = getBalance(record.uuid());
+		switch (record.type()) {
+			case MoneyJournal.CARRIED_DELTA -> balance.carried.addAndGet(record.value());
+			case MoneyJournal.BANKED_DELTA -> balance.banked.addAndGet(record.value());
+			case MoneyJournal.UPGRADE_LEVEL -> {
+				if (record.text() == null) {
+					return;
+				}
+				balance.setUpgrade(record.text(), (int) record.value());
+			}
+			case MoneyJournal.SPECIALIZATION -> balance.specializationChoice = record.text();
+			default -> {
+				plugin.getLogger().warning("Unknown money journal record type " + record.type() + " at " + record.sequence());
+				return;
+			}
+		}
+		indexWealth(record.uuid(), balance);
+		dirty.add(record.uuid());
+	}
+
+	public void flushJournal() {
+		journal.flush();
+	}
+
+	public void closeJournal() {
+		journal.close();
+	}
+
+	public void preload(UUID uuid) {
+		if (balances.containsKey(uuid)) {
 			return;
 		}
-		for (String key : playersSection.getKeys(false)) {
-			ConfigurationSection entry = playersSection.getConfigurationSection(key);
-			if (entry == null) {
+		balances.putIfAbsent(uuid, loadFromStore(uuid));
+		departed.putIfAbsent(uuid, System.currentTimeMillis());
+	}
+
+	public boolean isCached(UUID uuid) {
+		return balances.containsKey(uuid);
+	}
+
+	public void markOnline(UUID uuid) {
+		departed.remove(uuid);
+		preload(uuid);
+	}
+
+	public void markOffline(UUID uuid) {
+		departed.put(uuid, System.currentTimeMillis());
+	}
+
+	public int evictIdle() {
+		if (savesInFlight.get() > 0) {
+			return 0;
+		}
+		long now = System.currentTimeMillis();
+		long graceMs = (long) (configManager.getConfig().getDouble("economy.cache.evictGraceSeconds", 300.0) * 1000L);
+		List<UUID> candidates = new ArrayList<>();
+		for (UUID uuid : balances.keySet()) {
+			if (dirty.contains(uuid) || Bukkit.getPlayer(uuid) != null) {
 				continue;
 			}
-			UUID uuid;
-			try {
-				uuid = UUID.fromString(key);
-			} catch (IllegalArgumentException ex) {
+			Long departedAt = departed.get(uuid);
+			if (departedAt != null && now - departedAt < graceMs) {
 				continue;
 			}
-			PlayerBalance balance = new PlayerBalance();
-			balance.banked = entry.getLong("banked", 0L);
-			balance.carried = entry.getLong("carried", 0L);
-			balance.specializationChoice = entry.getString("specializationChoice", null);
-			ConfigurationSection upgradesSection = entry.getConfigurationSection("upgrades");
-			if (upgradesSection != null) {
-				for (String upgradeId : upgradesSection.getKeys(false)) {
-					balance.upgrades.put(upgradeId.toLowerCase(), upgradesSection.getInt(upgradeId, 0));
+			candidates.add(uuid);
+		}
+		if (candidates.isEmpty()) {
+			return 0;
+		}
+		int evicted = 0;
+		mutationLock.writeLock().lock();
+		try {
+			if (savesInFlight.get() > 0) {
+				return 0;
+			}
+			for (UUID uuid : candidates) {
+				PlayerBalance balance = balances.get(uuid);
+				if (balance == null || dirty.contains(uuid) || !balances.remove(uuid, balance)) {
+					continue;
 				}
+				departed.remove(uuid);
+				evicted++;
 			}
-			balances.put(uuid, balance);
+		} finally {
+			mutationLock.writeLock().unlock();
 		}
+		return evicted;
 	}
 
-	public void save() {
-		YamlConfiguration yaml = new YamlConfiguration();
-		ConfigurationSection playersSection = yaml.createSection("players");
-		for (Map.Entry<UUID, PlayerBalance> entry : balances.entrySet()) {
-			ConfigurationSection playerSection = playersSection.createSection(entry.getKey().toString());
-			PlayerBalance balance = entry.getValue();
-			playerSection.set("banked", balance.banked);
-			playerSection.set("carried", balance.carried);
-			if (balance.specializationChoice != null && !balance.specializationChoice.isBlank()) {
-				playerSection.set("specializationChoice", balance.specializationChoice);
-			}
-			ConfigurationSection upgradesSection = playerSection.createSection("upgrades");
-			for (Map.Entry<String, Integer> upgradeEntry : balance.upgrades.entrySet()) {
-				if (upgradeEntry.getValue() != null && upgradeEntry.getValue() > 0) {
-					upgradesSection.set(upgradeEntry.getKey(), upgradeEntry.getValue());
+	public int getCachedPlayerCount() {
+		return balances.size();
+	}
+
+	public void compact() {
+		int removed = store.compactPlayers();
+		if (removed > 0) {
+			plugin.getLogger().info("Compacted " + removed + " empty player records.");
+		}
+	}
+
+	public Snapshot snapshot() {
+		savesInFlight.incrementAndGet();
+		mutationLock.writeLock().lock();
+		try {
+			long journalSequence = journal.rotate();
+			Map<UUID, BalanceValues> copies = new HashMap<>();
+			for (UUID uuid : dirty) {
+				dirty.remove(uuid);
+				PlayerBalance balance = balances.get(uuid);
+				if (balance != null) {
+					copies.put(uuid, new BalanceValues(balance.carried.get(), balance.banked.get(), balance.specializationChoice,
+						balance.upgradeLevels()));
 				}
 			}
+			return new Snapshot(copies, journalSequence);
+		} finally {
+			mutationLock.writeLock().unlock();
 		}
+	}
+
+	public synchronized boolean save(Snapshot snapshot) {
 		try {
-			AtomicFileWriter.writeAtomically(playersFile, yaml.saveToString().getBytes());
-		} catch (IOException e) {
-			plugin.getLogger().warning("Failed to save players.yml: " + e.getMessage());
+			if (!snapshot.balances().isEmpty() && !store.writePlayers(snapshot.balances(), snapshot.journalSequence())) {
+				dirty.addAll(snapshot.balances().keySet());
+				return false;
+			}
+			journal.discardThrough(snapshot.journalSequence());
+			return true;
+		} finally {
+			savesInFlight.decrementAndGet();
 		}
 	}
 
-	private YamlConfiguration loadWithBackup() {
-		File tmp = new File(playersFile.getParentFile(), playersFile.getName() + ".tmp");
-		if (tmp.exists() && !tmp.delete()) {
-			plugin.getLogger().warning("Unable to delete stale players temp file: " + tmp.getName());
-		}
-		YamlConfiguration primary = loadConfig(playersFile);
-		if (primary != null && !primary.getKeys(false).isEmpty()) {
-			return primary;
-		}
-		File backup = new File(playersFile.getParentFile(), playersFile.getName() + ".bak");
-		YamlConfiguration backupConfig = loadConfig(backup);
-		if (backupConfig != null) {
-			return backupConfig;
-		}
-		return primary != null ? primary : new YamlConfiguration();
+	public CompletableFuture<Void> exportYaml() {
+		save(snapshot());
+		return playerYaml.export(store::forEachPlayer);
 	}
 
-	private YamlConfiguration loadConfig(File file) {
-		if (!file.exists()) {
+	public Set<UUID> importYaml() {
+		Map<UUID, BalanceValues> imported = playerYaml.readExport();
+		if (imported == null) {
 			return null;
 		}
+		mutationLock.writeLock().lock();
 		try {
-			String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
-			YamlConfiguration yaml = new YamlConfiguration();
-			yaml.loadFromString(content);
-			return yaml;
-		} catch (IOException | InvalidConfigurationException e) {
-			plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
-			return null;
+			if (!save(snapshot()) || (!imported.isEmpty() && !store.writePlayers(imported, journal.getLastSequence()))) {
+				return null;
+			}
+			for (Map.Entry<UUID, BalanceValues> entry : imported.entrySet()) {
+				balances.remove(entry.getKey());
+				wealthIndex.update(entry.getKey(), entry.getValue().carried() + entry.getValue().banked());
+			}
+			return imported.keySet();
+		} finally {
+			mutationLock.writeLock().unlock();
 		}
 	}
 
 	public long getCarried(UUID uuid) {
-		return getBalance(uuid).carried;
+		return peekBalance(uuid).carried.get();
 	}
 
 	public long getBanked(UUID uuid) {
-		return getBalance(uuid).banked;
+		return peekBalance(uuid).banked.get();
 	}
 
 	public void addCarried(Player player, long amount) {
+		credit(player.getUniqueId(), Account.CARRIED, amount);
+	}
+
+	public boolean removeCarried(Player player, long amount) {
+		return debit(player.getUniqueId(), Account.CARRIED, amount);
+	}
+
+	public boolean removeBanked(Player player, long amount) {
+		return debit(player.getUniqueId(), Account.BANKED, amount);
+	}
+
+	public void addBanked(Player player, long amount) {
+		credit(player.getUniqueId(), Account.BANKED, amount);
+	}
+
+	public void credit(UUID uuid, Account account, long amount) {
 		if (amount <= 0) {
 			return;
 		}
-		PlayerBalance balance = getBalance(player.getUniqueId());
-		balance.carried += amount;
+		mutationLock.readLock().lock();
+		try {
+			creditLocked(uuid, account, amount);
+		} finally {
+			mutationLock.readLock().unlock();
+		}
 	}
 
-	public boolean removeCarried(Player player, long amount) {
+	public boolean debit(UUID uuid, Account account, long amount) {
 		if (amount <= 0) {
 			return true;
 		}
-		PlayerBalance balance = getBalance(player.getUniqueId());
-		if (balance.carried < amount) {
-			return false;
+		mutationLock.readLock().lock();
+		try {
+			return debitLocked(uuid, account, amount);
+		} finally {
+			mutationLock.readLock().unlock();
 		}
-		balance.carried -= amount;
-		return true;
 	}
 
-	public boolean removeBanked(Player player, long amount) {
+	public boolean transfer(UUID uuid, Account from, Account to, long amount) {
+		return transfer(uuid, from, uuid, to, amount);
+	}
+
+	public boolean transfer(UUID fromUuid, Account from, UUID toUuid, Account to, long amount) {
 		if (amount <= 0) {
+			return false;
+		}
+		mutationLock.readLock().lock();
+		try {
+			if (!debitLocked(fromUuid, from, amount)) {
+				return false;
+			}
+			creditLocked(toUuid, to, amount);
 			return true;
+		} finally {
+			mutationLock.readLock().unlock();
 		}
-		PlayerBalance balance = getBalance(player.getUniqueId());
-		if (balance.banked < amount) {
-			return false;
+	}
+
+	public long transferAvailable(UUID uuid, Account from, Account to, long maxAmount) {
+		mutationLock.readLock().lock();
+		try {
+			long moved = takeAvailable(uuid, from, maxAmount);
+			if (moved > 0) {
+				creditLocked(uuid, to, moved);
+			}
+			return moved;
+		} finally {
+			mutationLock.readLock().unlock();
 		}
-		balance.banked -= amount;
-		return true;
 	}
 
-	public void addBanked(Player player, long amount) {
-		if (amount <= 0) {
-			return;
+	public boolean applyBatch(List<BalanceOperation> operations) {
+		mutationLock.readLock().lock();
+		try {
+			List<BalanceOperation> applied = new ArrayList<>(operations.size());
+			for (BalanceOperation operation : operations) {
+				if (operation.delta() < 0 && !debitLocked(operation.uuid(), operation.account(), -operation.delta())) {
+					rollback(applied);
+					return false;
+				}
+				if (operation.delta() > 0) {
+					creditLocked(operation.uuid(), operation.account(), operation.delta());
+				}
+				applied.add(operation);
+			}
+			return true;
+		} finally {
+			mutationLock.readLock().unlock();
+		}
+	}
+
+	private void rollback(List<BalanceOperation> applied) {
+		for (int i = applied.size() - 1; i >= 0; i--) {
+			BalanceOperation done = applied.get(i);
+			if (done.delta() < 0) {
+				creditLocked(done.uuid(), done.account(), -done.delta());
+				continue;
+			}
+			long reversed = takeAvailable(done.uuid(), done.account(), done.delta());
+			if (reversed < done.delta()) {
+				plugin.getLogger().warning("Could not fully reverse a credit of " + done.delta() + " to " + done.uuid() + " ("
+					+ done.account() + "); " + (done.delta() - reversed) + " was already spent.");
+			}
 		}
-		PlayerBalance balance = getBalance(player.getUniqueId());
-		balance.banked += amount;
+	}
+
+	private void creditLocked(UUID uuid, Account account, long amount) {
+		getBalance(uuid).account(account).addAndGet(amount);
+		recordDelta(uuid, account, amount);
+	}
+
+	private boolean debitLocked(UUID uuid, Account account, long amount) {
+		AtomicLong target = getBalance(uuid).account(account);
+		while (true) {
+			long current = target.get();
+			if (current < amount) {
+				return false;
+			}
+			if (target.compareAndSet(current, current - amount)) {
+				recordDelta(uuid, account, -amount);
+				return true;
+			}
+		}
+	}
+
+	private long takeAvailable(UUID uuid, Account account, long maxAmount) {
+		AtomicLong source = getBalance(uuid).account(account);
+		while (true) {
+			long current = source.get();
+			long moved = maxAmount < 0 ? current : Math.min(maxAmount, current);
+			if (moved <= 0) {
+				return 0L;
+			}
+			if (source.compareAndSet(current, current - moved)) {
+				recordDelta(uuid, account, -moved);
+				return moved;
+			}
+		}
+	}
+
+	private void recordDelta(UUID uuid, Account account, long delta) {
+		markDirty(uuid);
+		journal.append(account.journalType, uuid, delta, null);
+		PlayerBalance balance = balances.get(uuid);
+		if (balance != null) {
+			indexWealth(uuid, balance);
+		}
+	}
+
+	private void indexWealth(UUID uuid, PlayerBalance balance) {
+		wealthIndex.update(uuid, () -> balance.carried.get() + balance.banked.get());
+	}
+
+	public int getWealthRank(UUID uuid) {
+		return wealthIndex.rank(uuid);
+	}
+
+	public List<WealthIndex.Entry> getWealthPage(int offset, int limit) {
+		return wealthIndex.page(offset, limit);
+	}
+
+	public int getRankedPlayerCount() {
+		return wealthIndex.size();
 	}
 
 	public void applyDeathLoss(Player player) {
@@ -175,29 +431,53 @@ public class MoneyService {
 	}
 
 	public void applyDeathLoss(Player player, double loss) {
-		PlayerBalance balance = getBalance(player.getUniqueId());
 		double clamped = Math.max(0.0, Math.min(1.0, loss));
-		long newCarried = Math.round(balance.carried * (1.0 - clamped));
-		balance.carried = Math.max(0, newCarried);
+		mutationLock.readLock().lock();
+		try {
+			AtomicLong carried = getBalance(player.getUniqueId()).carried;
+			while (true) {
+				long current = carried.get();
+				long newCarried = Math.max(0, Math.round(current * (1.0 - clamped)));
+				if (carried.compareAndSet(current, newCarried)) {
+					if (newCarried != current) {
+						recordDelta(player.getUniqueId(), Account.CARRIED, newCarried - current);
+					}
+					return;
+				}
+			}
+		} finally {
+			mutationLock.readLock().unlock();
+		}
 	}
 
 	public int getUpgradeLevel(UUID uuid, String upgradeId) {
 		if (upgradeId == null) {
 			return 0;
 		}
-		return getBalance(uuid).upgrades.getOrDefault(upgradeId.toLowerCase(), 0);
+		return peekBalance(uuid).upgrade(upgradeId.toLowerCase());
+	}
+
+	public int getUpgradeLevel(UUID uuid, int ordinal) {
+		UpgradeLayout layout = upgradeLayout;
+		if (ordinal < 0 || ordinal >= layout.ids.length) {
+			return 0;
+		}
+		return peekBalance(uuid).upgrade(layout, ordinal);
 	}
 
 	public void setUpgradeLevel(UUID uuid, String upgradeId, int level) {
 		if (upgradeId == null) {
 			return;
 		}
-		PlayerBalance balance = getBalance(uuid);
-		if (level <= 0) {
-			balance.upgrades.remove(upgradeId.toLowerCase());
-			return;
+		String id = upgradeId.toLowerCase();
+		mutationLock.readLock().lock();
+		try {
+			getBalance(uuid).setUpgrade(id, level);
+			markDirty(uuid);
+			journal.append(MoneyJournal.UPGRADE_LEVEL, uuid, Math.max(0, level), id);
+		} finally {
+			mutationLock.readLock().unlock();
 		}
-		balance.upgrades.put(upgradeId.toLowerCase(), level);
 	}
 
 	public boolean hasUpgrade(UUID uuid, String upgradeId) {
@@ -205,47 +485,181 @@ public class MoneyService {
 	}
 
 	public String getSpecializationChoice(UUID uuid) {
-		return getBalance(uuid).specializationChoice;
+		return peekBalance(uuid).specializationChoice;
 	}
 
 	public Map<String, Integer> getUpgradeLevels(UUID uuid) {
-		return Map.copyOf(getBalance(uuid).upgrades);
+		return peekBalance(uuid).upgradeLevels();
 	}
 
 	public void setSpecializationChoice(UUID uuid, String choice) {
-		getBalance(uuid).specializationChoice = choice;
+		mutationLock.readLock().lock();
+		try {
+			getBalance(uuid).specializationChoice = choice;
+			markDirty(uuid);
+			journal.append(MoneyJournal.SPECIALIZATION, uuid, 0L, choice);
+		} finally {
+			mutationLock.readLock().unlock();
+		}
+	}
+
+	private void markDirty(UUID uuid) {
+		dirty.add(uuid);
 	}
 
 	private PlayerBalance getBalance(UUID uuid) {
-		return balances.computeIfAbsent(uuid, ignored -> new PlayerBalance());
+		PlayerBalance balance = balances.get(uuid);
+		if (balance != null) {
+			return balance;
+		}
+		PlayerBalance loaded = loadFromStore(uuid);
+		PlayerBalance existing = balances.putIfAbsent(uuid, loaded);
+		return existing != null ? existing : loaded;
+	}
+
+	private PlayerBalance peekBalance(UUID uuid) {
+		PlayerBalance balance = balances.get(uuid);
+		return balance != null ? balance : loadFromStore(uuid);
+	}
+
+	private PlayerBalance loadFromStore(UUID uuid) {
+		BalanceValues values = store.readPlayer(uuid);
+		PlayerBalance balance = values == null ? new PlayerBalance() : fromValues(values);
+		balance.relayout(upgradeLayout);
+		return balance;
 	}
 
 	public void clampUpgradeLevels(Map<String, com.daytonjwatson.ledger.upgrades.UpgradeDefinition> definitions) {
 		if (definitions == null || definitions.isEmpty()) {
 			return;
 		}
-		for (PlayerBalance balance : balances.values()) {
-			for (Map.Entry<String, Integer> entry : balance.upgrades.entrySet()) {
-				String id = entry.getKey().toLowerCase();
-				com.daytonjwatson.ledger.upgrades.UpgradeDefinition definition = definitions.get(id);
-				if (definition == null) {
-					continue;
+		UpgradeLayout layout = new UpgradeLayout(definitions.values());
+		upgradeLayout = layout;
+		for (Map.Entry<UUID, PlayerBalance> player : balances.entrySet()) {
+			if (player.getValue().relayout(layout)) {
+				markDirty(player.getKey());
+			}
+		}
+	}
+
+	public record Snapshot(Map<UUID, BalanceValues> balances, long journalSequence) {
+	}
+
+	public record BalanceValues(long carried, long banked, String specializationChoice, Map<String, Integer> upgrades) {
+	}
+
+	public record BalanceOperation(UUID uuid, Account account, long delta) {
+	}
+
+	public enum Account {
+		CARRIED(MoneyJournal.CARRIED_DELTA),
+		BANKED(MoneyJournal.BANKED_DELTA);
+
+		private final byte journalType;
+
+		Account(byte journalType) {
+			this.journalType = journalType;
+		}
+	}
+
+	private static class PlayerBalance {
+		private final AtomicLong carried = new AtomicLong();
+		private final AtomicLong banked = new AtomicLong();
+		private volatile String specializationChoice;
+		private volatile UpgradeLevels upgrades = new UpgradeLevels(UpgradeLayout.EMPTY, new int[0]);
+		private final Map<String, Integer> unlistedUpgrades = new ConcurrentHashMap<>();
+
+		private AtomicLong account(Account account) {
+			return account == Account.CARRIED ? carried : banked;
+		}
+
+		private int upgrade(UpgradeLayout layout, int ordinal) {
+			UpgradeLevels current = upgrades;
+			if (current.layout() == layout) {
+				return current.levels()[ordinal];
+			}
+			return upgrade(layout.ids[ordinal]);
+		}
+
+		private int upgrade(String id) {
+			UpgradeLevels current = upgrades;
+			int ordinal = current.layout().ordinalOf(id);
+			if (ordinal >= 0) {
+				return current.levels()[ordinal];
+			}
+			return unlistedUpgrades.getOrDefault(id, 0);
+		}
+
+		private synchronized void setUpgrade(String id, int level) {
+			UpgradeLevels current = upgrades;
+			int ordinal = current.layout().ordinalOf(id);
+			if (ordinal >= 0) {
+				int[] levels = current.levels().clone();
+				levels[ordinal] = Math.max(0, level);
+				upgrades = new UpgradeLevels(current.layout(), levels);
+			} else if (level <= 0) {
+				unlistedUpgrades.remove(id);
+			} else {
+				unlistedUpgrades.put(id, level);
+			}
+		}
+
+		private Map<String, Integer> upgradeLevels() {
+			UpgradeLevels current = upgrades;
+			Map<String, Integer> levels = new HashMap<>(unlistedUpgrades);
+			for (int ordinal = 0; ordinal < current.levels().length; ordinal++) {
+				if (current.levels()[ordinal] > 0) {
+					levels.put(current.layout().ids[ordinal], current.levels()[ordinal]);
 				}
-				int maxLevel = definition.getMaxLevel();
-				int current = entry.getValue() == null ? 0 : entry.getValue();
-				if (current > maxLevel) {
-					entry.setValue(maxLevel);
-				} else if (current < 0) {
-					entry.setValue(0);
+			}
+			return Map.copyOf(levels);
+		}
+
+		private synchronized boolean relayout(UpgradeLayout layout) {
+			if (upgrades.layout() == layout) {
+				return false;
+			}
+			Map<String, Integer> previous = upgradeLevels();
+			int[] levels = new int[layout.ids.length];
+			boolean changed = false;
+			unlistedUpgrades.clear();
+			for (Map.Entry<String, Integer> entry : previous.entrySet()) {
+				int ordinal = layout.ordinalOf(entry.getKey());
+				if (ordinal < 0) {
+					unlistedUpgrades.put(entry.getKey(), entry.getValue());
+					continue;
 				}
+				int clamped = Math.max(0, Math.min(layout.maxLevels[ordinal], entry.getValue()));
+				changed |= clamped != entry.getValue();
+				levels[ordinal] = clamped;
 			}
+			upgrades = new UpgradeLevels(layout, levels);
+			return changed;
 		}
 	}
 
-	private static class PlayerBalance {
-		private long carried;
-		private long banked;
-		private String specializationChoice;
-		private final Map<String, Integer> upgrades = new ConcurrentHashMap<>();
+	private record UpgradeLevels(UpgradeLayout layout, int[] levels) {
+	}
+
+	private static class UpgradeLayout {
+		private static final UpgradeLayout EMPTY = new UpgradeLayout(List.of());
+		private final String[] ids;
+		private final int[] maxLevels;
+		private final Map<String, Integer> ordinals = new HashMap<>();
+
+		private UpgradeLayout(Collection<com.daytonjwatson.ledger.upgrades.UpgradeDefinition> definitions) {
+			this.ids = new String[definitions.size()];
+			this.maxLevels = new int[definitions.size()];
+			for (com.daytonjwatson.ledger.upgrades.UpgradeDefinition definition : definitions) {
+				ids[definition.getOrdinal()] = definition.getId();
+				maxLevels[definition.getOrdinal()] = definition.getMaxLevel();
+				ordinals.put(definition.getId(), definition.getOrdinal());
+			}
+		}
+
+		private int ordinalOf(String id) {
+			Integer ordinal = ordinals.get(id);
+			return ordinal == null ? -1 : ordinal;
+		}
 	}
 }
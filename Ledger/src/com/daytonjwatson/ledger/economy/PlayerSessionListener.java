@@ -0,0 +1,39 @@
+package com.daytonjwatson.ledger.economy;
+
+import com.daytonjwatson.ledger.upgrades.UpgradeService;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerSessionListener implements Listener {
+	private final MoneyService moneyService;
+	private final UpgradeService upgradeService;
+
+	public PlayerSessionListener(MoneyService moneyService, UpgradeService upgradeService) {
+		this.moneyService = moneyService;
+		this.upgradeService = upgradeService;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+		if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+			return;
+		}
+		moneyService.preload(event.getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onJoin(PlayerJoinEvent event) {
+		moneyService.markOnline(event.getPlayer().getUniqueId());
+		upgradeService.getModifiers(event.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(PlayerQuitEvent event) {
+		moneyService.markOffline(event.getPlayer().getUniqueId());
+		upgradeService.invalidateModifiers(event.getPlayer().getUniqueId());
+	}
+}
@@ -0,0 +1,300 @@
+package com.daytonjwatson.ledger.economy;
+
+import com.daytonjwatson.ledger.util.BinarySnapshot;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import com.daytonjwatson.ledger.util.YamlFiles;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+public class PlayerStore {
+	public static final int SEGMENTS = 256;
+	private static final int FORMAT = 2;
+	private static final int FORMAT_VERSION = 1;
+	private static final int TOTALS_FORMAT = 4;
+	private final JavaPlugin plugin;
+	private final PersistenceWriter writer;
+	private final File directory;
+	private final File indexFile;
+	private final File totalsFile;
+	private final Map<Integer, Segment> inFlight = new ConcurrentHashMap<>();
+	private long highestSequence = -1L;
+
+	public PlayerStore(JavaPlugin plugin, PersistenceWriter writer) {
+		this.plugin = plugin;
+		this.writer = writer;
+		this.directory = new File(plugin.getDataFolder(), "players");
+		this.indexFile = new File(directory, "index.dat");
+		this.totalsFile = new File(directory, "wealth.dat");
+	}
+
+	public static int segmentOf(UUID uuid) {
+		return (int) (uuid.getMostSignificantBits() >>> 56);
+	}
+
+	public synchronized MoneyService.BalanceValues read(UUID uuid) {
+		Segment pending = inFlight.get(segmentOf(uuid));
+		if (pending != null) {
+			return pending.players().get(uuid);
+		}
+		return readSegment(segmentOf(uuid)).players().get(uuid);
+	}
+
+	public synchronized long segmentSequence(int segment) {
+		return readSegment(segment).journalSequence();
+	}
+
+	public synchronized long highestSequence() {
+		if (highestSequence >= 0L) {
+			return highestSequence;
+		}
+		Segment index = readBinaryWithBackup(indexFile);
+		if (index != null) {
+			highestSequence = index.journalSequence();
+			return highestSequence;
+		}
+		long highest = 0L;
+		for (int segment = 0; segment < SEGMENTS; segment++) {
+			highest = Math.max(highest, segmentSequence(segment));
+		}
+		highestSequence = highest;
+		return highest;
+	}
+
+	public synchronized void forEachPlayer(BiConsumer<UUID, MoneyService.BalanceValues> consumer) {
+		for (int segment = 0; segment < SEGMENTS; segment++) {
+			readSegment(segment).players().forEach(consumer);
+		}
+	}
+
+	public synchronized Map<UUID, Long> readTotals() {
+		if (!totalsFile.exists()) {
+			return null;
+		}
+		try {
+			BinarySnapshot.Reader in = BinarySnapshot.Reader.open(totalsFile, TOTALS_FORMAT);
+			if (!in.next() || in.readLong() != highestSequence()) {
+				return null;
+			}
+			Map<UUID, Long> totals = new HashMap<>();
+			while (in.next()) {
+				totals.put(in.readUuid(), in.readLong());
+			}
+			return totals;
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to load " + totalsFile.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	public void writeTotals(Map<UUID, Long> totals) {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(TOTALS_FORMAT, FORMAT_VERSION);
+		CompletableFuture<Void> write;
+		synchronized (this) {
+			out.beginRecord().writeLong(highestSequence()).endRecord();
+			totals.forEach((uuid, total) -> out.beginRecord().writeUuid(uuid).writeLong(total).endRecord());
+			write = writer.submit(totalsFile, out.toByteArray());
+		}
+		await(List.of(write));
+	}
+
+	public boolean write(Map<UUID, MoneyService.BalanceValues> players, long journalSequence) {
+		Map<Integer, Map<UUID, MoneyService.BalanceValues>> bySegment = new HashMap<>();
+		for (Map.Entry<UUID, MoneyService.BalanceValues> entry : players.entrySet()) {
+			bySegment.computeIfAbsent(segmentOf(entry.getKey()), ignored -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+		}
+		List<CompletableFuture<Void>> writes = new ArrayList<>();
+		Map<Integer, Segment> submitted = new HashMap<>();
+		boolean advanced;
+		synchronized (this) {
+			for (Map.Entry<Integer, Map<UUID, MoneyService.BalanceValues>> segment : bySegment.entrySet()) {
+				Map<UUID, MoneyService.BalanceValues> merged = readSegment(segment.getKey()).players();
+				merged.putAll(segment.getValue());
+				submitted.put(segment.getKey(), submit(segment.getKey(), new Segment(journalSequence, merged), writes));
+			}
+			advanced = journalSequence > highestSequence();
+			if (advanced) {
+				writes.add(writer.submit(indexFile, encode(journalSequence, Map.of())));
+			}
+		}
+		boolean written = await(writes);
+		submitted.forEach(inFlight::remove);
+		if (!written) {
+			return false;
+		}
+		if (advanced) {
+			synchronized (this) {
+				highestSequence = Math.max(highestSequence, journalSequence);
+			}
+		}
+		for (int segment : bySegment.keySet()) {
+			retire(yamlSegmentFile(segment));
+		}
+		return true;
+	}
+
+	public int compact() {
+		int removed = 0;
+		List<CompletableFuture<Void>> writes = new ArrayList<>();
+		Map<Integer, Segment> submitted = new HashMap<>();
+		synchronized (this) {
+			for (int segment = 0; segment < SEGMENTS; segment++) {
+				Segment loaded = readSegment(segment);
+				int before = loaded.players().size();
+				loaded.players().values().removeIf(this::isEmpty);
+				if (loaded.players().size() == before) {
+					continue;
+				}
+				removed += before - loaded.players().size();
+				submitted.put(segment, submit(segment, loaded, writes));
+			}
+		}
+		boolean written = await(writes);
+		submitted.forEach(inFlight::remove);
+		if (written) {
+			for (int segment : submitted.keySet()) {
+				retire(yamlSegmentFile(segment));
+			}
+		}
+		return removed;
+	}
+
+	private Segment submit(int segment, Segment contents, List<CompletableFuture<Void>> writes) {
+		inFlight.put(segment, contents);
+		writes.add(writer.submit(segmentFile(segment), encode(contents.journalSequence(), contents.players())));
+		return contents;
+	}
+
+	private Segment readSegment(int segment) {
+		Segment pending = inFlight.get(segment);
+		if (pending != null) {
+			return new Segment(pending.journalSequence(), new LinkedHashMap<>(pending.players()));
+		}
+		Segment loaded = readBinaryWithBackup(segmentFile(segment));
+		if (loaded != null) {
+			return loaded;
+		}
+		YamlConfiguration yaml = YamlFiles.loadWithBackup(yamlSegmentFile(segment), plugin.getLogger());
+		Map<UUID, MoneyService.BalanceValues> players = new LinkedHashMap<>();
+		if (yaml == null) {
+			return new Segment(0L, players);
+		}
+		PlayerYaml.readPlayers(yaml, players::put);
+		return new Segment(yaml.getLong("journalSequence", 0L), players);
+	}
+
+	private Segment readBinaryWithBackup(File file) {
+		Segment primary = readBinary(file);
+		return primary != null ? primary : readBinary(new File(file.getParentFile(), file.getName() + ".bak"));
+	}
+
+	private Segment readBinary(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			BinarySnapshot.Reader in = BinarySnapshot.Reader.open(file, FORMAT);
+			Map<UUID, MoneyService.BalanceValues> players = new LinkedHashMap<>();
+			long journalSequence = in.next() ? in.readLong() : 0L;
+			while (in.next()) {
+				UUID uuid = in.readUuid();
+				long carried = in.readLong();
+				long banked = in.readLong();
+				String specializationChoice = in.readString();
+				int upgradeCount = in.readInt();
+				Map<String, Integer> upgrades = new HashMap<>();
+				for (int i = 0; i < upgradeCount; i++) {
+					upgrades.put(in.readString(), in.readInt());
+				}
+				players.put(uuid, new MoneyService.BalanceValues(carried, banked, specializationChoice, upgrades));
+			}
+			return new Segment(journalSequence, players);
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private byte[] encode(long journalSequence, Map<UUID, MoneyService.BalanceValues> players) {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(FORMAT, FORMAT_VERSION);
+		out.beginRecord().writeLong(journalSequence).endRecord();
+		for (Map.Entry<UUID, MoneyService.BalanceValues> entry : players.entrySet()) {
+			MoneyService.BalanceValues balance = entry.getValue();
+			int upgradeCount = 0;
+			for (Integer level : balance.upgrades().values()) {
+				if (level != null && level > 0) {
+					upgradeCount++;
+				}
+			}
+			out.beginRecord().writeUuid(entry.getKey()).writeLong(balance.carried()).writeLong(balance.banked())
+				.writeString(balance.specializationChoice()).writeInt(upgradeCount);
+			for (Map.Entry<String, Integer> upgrade : balance.upgrades().entrySet()) {
+				if (upgrade.getValue() != null && upgrade.getValue() > 0) {
+					out.writeString(upgrade.getKey()).writeInt(upgrade.getValue());
+				}
+			}
+			out.endRecord();
+		}
+		return out.toByteArray();
+	}
+
+	private boolean await(List<CompletableFuture<Void>> writes) {
+		boolean success = true;
+		for (CompletableFuture<Void> write : writes) {
+			try {
+				write.join();
+			} catch (CompletionException ex) {
+				success = false;
+			}
+		}
+		return success;
+	}
+
+	private void retire(File file) {
+		if (!file.exists()) {
+			return;
+		}
+		File retired = new File(file.getParentFile(), file.getName() + ".migrated");
+		if (!file.renameTo(retired)) {
+			plugin.getLogger().warning("Unable to rename " + file.getName() + " after migrating player data.");
+		}
+	}
+
+	private boolean isEmpty(MoneyService.BalanceValues balance) {
+		if (balance.carried() != 0L || balance.banked() != 0L) {
+			return false;
+		}
+		if (balance.specializationChoice() != null && !balance.specializationChoice().isBlank()) {
+			return false;
+		}
+		for (Integer level : balance.upgrades().values()) {
+			if (level != null && level > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private File segmentFile(int segment) {
+		return new File(directory, String.format("players-%02x.dat", segment));
+	}
+
+	private File yamlSegmentFile(int segment) {
+		return new File(directory, String.format("players-%02x.yml", segment));
+	}
+
+	private record Segment(long journalSequence, Map<UUID, MoneyService.BalanceValues> players) {
+	}
+}
@@ -0,0 +1,115 @@
+package com.daytonjwatson.ledger.economy;
+
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import com.daytonjwatson.ledger.util.YamlFiles;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public class PlayerYaml {
+	private final JavaPlugin plugin;
+	private final PersistenceWriter writer;
+	private final File legacyFile;
+	private final File exportFile;
+
+	public PlayerYaml(JavaPlugin plugin, PersistenceWriter writer) {
+		this.plugin = plugin;
+		this.writer = writer;
+		this.legacyFile = new File(plugin.getDataFolder(), "players.yml");
+		this.exportFile = new File(new File(plugin.getDataFolder(), "export"), "players.yml");
+	}
+
+	public long loadLegacy(BiConsumer<UUID, MoneyService.BalanceValues> consumer) {
+		YamlConfiguration yaml = YamlFiles.loadWithBackup(legacyFile, plugin.getLogger());
+		if (yaml == null) {
+			return -1L;
+		}
+		readPlayers(yaml, consumer);
+		return yaml.getLong("journalSequence", 0L);
+	}
+
+	public void retireLegacy() {
+		if (!legacyFile.exists()) {
+			return;
+		}
+		File retired = new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated");
+		if (!legacyFile.renameTo(retired)) {
+			plugin.getLogger().warning("Unable to rename " + legacyFile.getName() + " after migrating player data.");
+		}
+	}
+
+	public CompletableFuture<Void> export(Consumer<BiConsumer<UUID, MoneyService.BalanceValues>> players) {
+		YamlConfiguration yaml = new YamlConfiguration();
+		ConfigurationSection playersSection = yaml.createSection("players");
+		players.accept((uuid, balance) -> writePlayer(playersSection, uuid, balance));
+		return writer.submit(exportFile, yaml.saveToString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Map<UUID, MoneyService.BalanceValues> readExport() {
+		YamlConfiguration yaml = YamlFiles.load(exportFile, plugin.getLogger());
+		if (yaml == null) {
+			return null;
+		}
+		Map<UUID, MoneyService.BalanceValues> players = new HashMap<>();
+		readPlayers(yaml, players::put);
+		return players;
+	}
+
+	static void readPlayers(YamlConfiguration yaml, BiConsumer<UUID, MoneyService.BalanceValues> consumer) {
+		ConfigurationSection playersSection = yaml.getConfigurationSection("players");
+		if (playersSection == null) {
+			return;
+		}
+		for (String key : playersSection.getKeys(false)) {
+			ConfigurationSection entry = playersSection.getConfigurationSection(key);
+			if (entry == null) {
+				continue;
+			}
+			UUID uuid;
+			try {
+				uuid = UUID.fromString(key);
+			} catch (IllegalArgumentException ex) {
+				continue;
+			}
+			consumer.accept(uuid, readBalance(entry));
+		}
+	}
+
+	private static MoneyService.BalanceValues readBalance(ConfigurationSection entry) {
+		Map<String, Integer> upgrades = new HashMap<>();
+		ConfigurationSection upgradesSection = entry.getConfigurationSection("upgrades");
+		if (upgradesSection != null) {
+			for (String upgradeId : upgradesSection.getKeys(false)) {
+				upgrades.put(upgradeId.toLowerCase(), upgradesSection.getInt(upgradeId, 0));
+			}
+		}
+		return new MoneyService.BalanceValues(entry.getLong("carried", 0L), entry.getLong("banked", 0L),
+			entry.getString("specializationChoice", null), upgrades);
+	}
+
+	private static void writePlayer(ConfigurationSection playersSection, UUID uuid, MoneyService.BalanceValues balance) {
+		String key = uuid.toString();
+		playersSection.set(key, null);
+		ConfigurationSection playerSection = playersSection.createSection(key);
+		playerSection.set("banked", balance.banked());
+		playerSection.set("carried", balance.carried());
+		if (balance.specializationChoice() != null && !balance.specializationChoice().isBlank()) {
+			playerSection.set("specializationChoice", balance.specializationChoice());
+		}
+		ConfigurationSection upgradesSection = playerSection.createSection("upgrades");
+		for (Map.Entry<String, Integer> upgradeEntry : balance.upgrades().entrySet()) {
+			if (upgradeEntry.getValue() != null && upgradeEntry.getValue() > 0) {
+				upgradesSection.set(upgradeEntry.getKey(), upgradeEntry.getValue());
+			}
+		}
+	}
+}
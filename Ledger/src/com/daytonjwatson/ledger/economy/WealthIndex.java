@@ -0,0 +1,192 @@
+package com.daytonjwatson.ledger.economy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+public class WealthIndex {
+	private final Map<UUID, Long> totals = new HashMap<>();
+	private final Random random = new Random();
+	private Node root;
+
+	public synchronized void update(UUID uuid, LongSupplier total) {
+		update(uuid, total.getAsLong());
+	}
+
+	public synchronized void update(UUID uuid, long total) {
+		Long previous = totals.get(uuid);
+		if (previous != null) {
+			if (previous == total) {
+				return;
+			}
+			root = remove(root, previous, uuid);
+			totals.remove(uuid);
+		}
+		if (total <= 0L) {
+			return;
+		}
+		totals.put(uuid, total);
+		root = insert(root, new Node(uuid, total, random.nextInt()));
+	}
+
+	public synchronized Map<UUID, Long> totals() {
+		return new HashMap<>(totals);
+	}
+
+	public synchronized int rank(UUID uuid) {
+		Long total = totals.get(uuid);
+		if (total == null) {
+			return 0;
+		}
+		int rank = 0;
+		Node node = root;
+		while (node != null) {
+			int cmp = compare(total, uuid, node);
+			if (cmp < 0) {
+				node = node.left;
+			} else {
+				rank += size(node.left) + 1;
+				if (cmp == 0) {
+					return rank;
+				}
+				node = node.right;
+			}
+		}
+		return 0;
+	}
+
+	public synchronized List<Entry> page(int offset, int limit) {
+		List<Entry> entries = new ArrayList<>();
+		int end = Math.min(size(root), offset + limit);
+		for (int index = Math.max(0, offset); index < end; index++) {
+			Node node = select(index);
+			entries.add(new Entry(node.uuid, node.total));
+		}
+		return entries;
+	}
+
+	public synchronized int size() {
+		return size(root);
+	}
+
+	private Node select(int index) {
+		Node node = root;
+		while (node != null) {
+			int leftSize = size(node.left);
+			if (index < leftSize) {
+				node = node.left;
+			} else if (index == leftSize) {
+				return node;
+			} else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return null;
+	}
+
+	private Node insert(Node node, Node inserted) {
+		if (node == null) {
+			return inserted;
+		}
+		if (inserted.priority > node.priority) {
+			Node[] parts = split(node, inserted.total, inserted.uuid);
+			inserted.left = parts[0];
+			inserted.right = parts[1];
+			inserted.resize();
+			return inserted;
+		}
+		if (compare(inserted.total, inserted.uuid, node) < 0) {
+			node.left = insert(node.left, inserted);
+		} else {
+			node.right = insert(node.right, inserted);
+		}
+		node.resize();
+		return node;
+	}
+
+	private Node remove(Node node, long total, UUID uuid) {
+		if (node == null) {
+			return null;
+		}
+		int cmp = compare(total, uuid, node);
+		if (cmp == 0) {
+			return merge(node.left, node.right);
+		}
+		if (cmp < 0) {
+			node.left = remove(node.left, total, uuid);
+		} else {
+			node.right = remove(node.right, total, uuid);
+		}
+		node.resize();
+		return node;
+	}
+
+	private Node[] split(Node node, long total, UUID uuid) {
+		if (node == null) {
+			return new Node[] {null, null};
+		}
+		if (compare(total, uuid, node) <= 0) {
+			Node[] parts = split(node.left, total, uuid);
+			node.left = parts[1];
+			node.resize();
+			return new Node[] {parts[0], node};
+		}
+		Node[] parts = split(node.right, total, uuid);
+		node.right = parts[0];
+		node.resize();
+		return new Node[] {node, parts[1]};
+	}
+
+	private Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			left.resize();
+			return left;
+		}
+		right.left = merge(left, right.left);
+		right.resize();
+		return right;
+	}
+
+	private static int compare(long total, UUID uuid, Node node) {
+		int cmp = Long.compare(node.total, total);
+		return cmp != 0 ? cmp : uuid.compareTo(node.uuid);
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	public record Entry(UUID uuid, long total) {
+	}
+
+	private static class Node {
+		private final UUID uuid;
+		private final long total;
+		private final int priority;
+		private Node left;
+		private Node right;
+		private int size = 1;
+
+		private Node(UUID uuid, long total, int priority) {
+			this.uuid = uuid;
+			this.total = total;
+			this.priority = priority;
+		}
+
+		private void resize() {
+			size = 1 + WealthIndex.size(left) + WealthIndex.size(right);
+		}
+	}
+}
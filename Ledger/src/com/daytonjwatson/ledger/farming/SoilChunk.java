@@ -0,0 +1,270 @@
+package com.daytonjwatson.ledger.farming;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class SoilChunk {
+	private static final int EMPTY = -1;
+	private static final int MIN_CAPACITY = 8;
+	private static final long EPOCH_MS = 1_600_000_000_000L;
+	private static final int FORMAT_VERSION = 1;
+	private static final int ENTRY_BYTES = 16;
+	private int[] keys;
+	private float[] fatigue;
+	private int[] lastUpdate;
+	private int[] lastTouched;
+	private int size;
+	private int earliestExpiry = Integer.MAX_VALUE;
+	private int scheduledExpiry = Integer.MAX_VALUE;
+	private boolean dirty;
+
+	SoilChunk() {
+		allocate(MIN_CAPACITY);
+	}
+
+	static int pack(int x, int y, int z) {
+		return (x & 15) | (z & 15) << 4 | (y & 0xFFFFF) << 8;
+	}
+
+	static int localX(int key) {
+		return key & 15;
+	}
+
+	static int localZ(int key) {
+		return key >>> 4 & 15;
+	}
+
+	static int blockY(int key) {
+		return key << 4 >> 12;
+	}
+
+	static int toSeconds(long millis) {
+		return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, (millis - EPOCH_MS) / 1000L));
+	}
+
+	static long toMillis(int seconds) {
+		return EPOCH_MS + seconds * 1000L;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getEarliestExpiry() {
+		return earliestExpiry;
+	}
+
+	int getScheduledExpiry() {
+		return scheduledExpiry;
+	}
+
+	void setScheduledExpiry(int scheduledExpiry) {
+		this.scheduledExpiry = scheduledExpiry;
+	}
+
+	boolean isDirty() {
+		return dirty;
+	}
+
+	void markClean() {
+		dirty = false;
+	}
+
+	int find(int key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; ; slot = slot + 1 & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			if (keys[slot] == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+	int insert(int key, int now) {
+		int existing = find(key);
+		if (existing >= 0) {
+			return existing;
+		}
+		if ((size + 1) * 4 > keys.length * 3) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			slot = slot + 1 & mask;
+		}
+		keys[slot] = key;
+		fatigue[slot] = 0.0f;
+		lastUpdate[slot] = now;
+		lastTouched[slot] = now;
+		size++;
+		return slot;
+	}
+
+	int keyAt(int slot) {
+		return keys[slot];
+	}
+
+	float fatigueAt(int slot) {
+		return fatigue[slot];
+	}
+
+	int lastUpdateAt(int slot) {
+		return lastUpdate[slot];
+	}
+
+	int lastTouchedAt(int slot) {
+		return lastTouched[slot];
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	boolean isOccupied(int slot) {
+		return keys[slot] != EMPTY;
+	}
+
+	void set(int slot, float value, int updatedAt, int touchedAt, int expiry) {
+		fatigue[slot] = value;
+		lastUpdate[slot] = updatedAt;
+		lastTouched[slot] = touchedAt;
+		earliestExpiry = Math.min(earliestExpiry, expiry);
+		dirty = true;
+	}
+
+	void mergeMissing(SoilChunk other, ExpiryFunction expiry) {
+		for (int slot = 0; slot < other.keys.length; slot++) {
+			int key = other.keys[slot];
+			if (key == EMPTY || find(key) >= 0) {
+				continue;
+			}
+			int target = insert(key, other.lastUpdate[slot]);
+			set(target, other.fatigue[slot], other.lastUpdate[slot], other.lastTouched[slot],
+				expiry.expiresAt(other.fatigue[slot], other.lastUpdate[slot], other.lastTouched[slot]));
+		}
+	}
+
+	byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(8 + size * ENTRY_BYTES);
+		buffer.putInt(FORMAT_VERSION).putInt(size);
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != EMPTY) {
+				buffer.putInt(keys[slot]).putFloat(fatigue[slot]).putInt(lastUpdate[slot]).putInt(lastTouched[slot]);
+			}
+		}
+		return buffer.array();
+	}
+
+	static SoilChunk fromBytes(byte[] data, ExpiryFunction expiry) {
+		if (data == null || data.length < 8) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		int version = buffer.getInt();
+		int count = buffer.getInt();
+		if (version != FORMAT_VERSION || count < 0 || (long) count * ENTRY_BYTES != buffer.remaining()) {
+			return null;
+		}
+		SoilChunk chunk = new SoilChunk();
+		for (int i = 0; i < count; i++) {
+			int key = buffer.getInt();
+			float fatigue = buffer.getFloat();
+			int lastUpdate = buffer.getInt();
+			int lastTouched = buffer.getInt();
+			int slot = chunk.insert(key, lastUpdate);
+			chunk.set(slot, fatigue, lastUpdate, lastTouched, expiry.expiresAt(fatigue, lastUpdate, lastTouched));
+		}
+		chunk.dirty = false;
+		return chunk;
+	}
+
+	void prune(ExpiryFunction expiry, int now) {
+		int[] oldKeys = keys;
+		float[] oldFatigue = fatigue;
+		int[] oldUpdate = lastUpdate;
+		int[] oldTouched = lastTouched;
+		int survivors = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != EMPTY && expiry.expiresAt(oldFatigue[slot], oldUpdate[slot], oldTouched[slot]) > now) {
+				survivors++;
+			}
+		}
+		if (survivors == size) {
+			earliestExpiry = Integer.MAX_VALUE;
+			for (int slot = 0; slot < oldKeys.length; slot++) {
+				if (oldKeys[slot] != EMPTY) {
+					earliestExpiry = Math.min(earliestExpiry, expiry.expiresAt(oldFatigue[slot], oldUpdate[slot], oldTouched[slot]));
+				}
+			}
+			return;
+		}
+		allocate(capacityFor(survivors));
+		size = 0;
+		earliestExpiry = Integer.MAX_VALUE;
+		dirty = true;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] == EMPTY) {
+				continue;
+			}
+			int entryExpiry = expiry.expiresAt(oldFatigue[slot], oldUpdate[slot], oldTouched[slot]);
+			if (entryExpiry <= now) {
+				continue;
+			}
+			int target = insert(oldKeys[slot], now);
+			fatigue[target] = oldFatigue[slot];
+			lastUpdate[target] = oldUpdate[slot];
+			lastTouched[target] = oldTouched[slot];
+			earliestExpiry = Math.min(earliestExpiry, entryExpiry);
+		}
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		float[] oldFatigue = fatigue;
+		int[] oldUpdate = lastUpdate;
+		int[] oldTouched = lastTouched;
+		allocate(capacity);
+		int mask = capacity - 1;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] == EMPTY) {
+				continue;
+			}
+			int target = hash(oldKeys[slot]) & mask;
+			while (keys[target] != EMPTY) {
+				target = target + 1 & mask;
+			}
+			keys[target] = oldKeys[slot];
+			fatigue[target] = oldFatigue[slot];
+			lastUpdate[target] = oldUpdate[slot];
+			lastTouched[target] = oldTouched[slot];
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		fatigue = new float[capacity];
+		lastUpdate = new int[capacity];
+		lastTouched = new int[capacity];
+	}
+
+	private static int capacityFor(int entries) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 < entries * 4 + 4) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int hash(int key) {
+		int mixed = key * 0x9E3779B9;
+		return mixed ^ mixed >>> 16;
+	}
+
+	interface ExpiryFunction {
+		int expiresAt(float fatigue, int lastUpdate, int lastTouched);
+	}
+}
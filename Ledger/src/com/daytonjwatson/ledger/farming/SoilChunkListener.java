@@ -0,0 +1,33 @@
+package com.daytonjwatson.ledger.farming;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+
+public class SoilChunkListener implements Listener {
+	private final SoilFatigueService soilFatigueService;
+
+	public SoilChunkListener(SoilFatigueService soilFatigueService) {
+		this.soilFatigueService = soilFatigueService;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkLoad(ChunkLoadEvent event) {
+		if (!event.isNewChunk()) {
+			soilFatigueService.hydrate(event.getChunk());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkUnload(ChunkUnloadEvent event) {
+		soilFatigueService.release(event.getChunk());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldSave(WorldSaveEvent event) {
+		soilFatigueService.flushWorld(event.getWorld());
+	}
+}
@@ -1,12 +1,17 @@
 package com.daytonjwatson.ledger.farming;
 
 import com.daytonjwatson.ledger.config.ConfigManager;
-import com.daytonjwatson.ledger.util.AtomicFileWriter;
+import com.daytonjwatson.ledger.storage.LedgerStore;
+import com.daytonjwatson.ledger.util.ExpiryWheel;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import com.daytonjwatson.ledger.util.YamlFiles;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -15,105 +20,408 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class SoilFatigueService {
 	private static final String ROOT = "soilFatigue.entries";
+	private static final int EXPIRY_SLOT_SECONDS = 3600;
+	private static final int EXPIRY_SLOTS = 512;
+	private static final int MAX_BACKLOG_TICKS = 20;
+	private static final int MAX_CATCH_UP_FACTOR = 8;
 	private final JavaPlugin plugin;
-	private final ConfigManager configManager;
+	private final PersistenceWriter writer;
+	private final LedgerStore store;
 	private final NamespacedKey fatigueKey;
-	private final Map<SoilKey, SoilEntry> entries = new HashMap<>();
-	private final File fatigueFile;
+	private final NamespacedKey chunkDataKey;
+	private final Map<UUID, Map<Long, SoilChunk>> loaded = new HashMap<>();
+	private final Map<UUID, Map<Long, SoilChunk>> pending = new HashMap<>();
+	private final Map<UUID, Map<Long, SoilChunk>> migrated = new HashMap<>();
+	private final ExpiryWheel<Due> expiryWheel;
+	private final Settings settings;
+	private final SoilChunk.ExpiryFunction expiry;
+	private final Map<ChunkRef, HarvestBatch> queuedHarvests = new LinkedHashMap<>();
+	private final Map<PreparedTag, ItemMeta> preparedMeta = new HashMap<>();
+	private final File legacyFile;
+	private final File exportFile;
+	private final Set<ChunkRef> changedPending = new HashSet<>();
+	private int queuedCount;
+	private int catchUpBudget;
 
-	public SoilFatigueService(JavaPlugin plugin, ConfigManager configManager) {
+	public SoilFatigueService(JavaPlugin plugin, ConfigManager configManager, PersistenceWriter writer, LedgerStore store) {
 		this.plugin = plugin;
-		this.configManager = configManager;
+		this.writer = writer;
+		this.store = store;
+		this.settings = Settings.from(configManager);
+		this.expiry = (fatigue, lastUpdate, lastTouched) -> expiresAt(fatigue, lastUpdate, lastTouched);
 		this.fatigueKey = new NamespacedKey(plugin, "soil_fatigue_multiplier");
-		this.fatigueFile = new File(plugin.getDataFolder(), "soil-fatigue.yml");
+		this.chunkDataKey = new NamespacedKey(plugin, "soil_fatigue");
+		this.expiryWheel = new ExpiryWheel<>(EXPIRY_SLOT_SECONDS, EXPIRY_SLOTS, SoilChunk.toSeconds(System.currentTimeMillis()));
+		this.legacyFile = new File(plugin.getDataFolder(), "soil-fatigue.yml");
+		this.exportFile = new File(new File(plugin.getDataFolder(), "export"), "soil-fatigue.yml");
 	}
 
 	public void load() {
-		if (!fatigueFile.exists()) {
+		Snapshot stored = store.loadSoil();
+		if (stored != null) {
+			for (SoilValues values : stored.entries()) {
+				put(pending, values.worldId(), values.x(), values.y(), values.z(), values.fatigue(), values.lastUpdate(), values.lastTouched());
+			}
+		} else if (loadYaml(legacyFile, pending)) {
+			store.saveSoil(pendingSnapshot(System.currentTimeMillis(), true));
+			if (!legacyFile.renameTo(new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated"))) {
+				plugin.getLogger().warning("Unable to rename " + legacyFile.getName() + " after migrating soil fatigue.");
+			}
+		}
+		pruneDue(System.currentTimeMillis());
+		for (World world : Bukkit.getWorlds()) {
+			for (Chunk chunk : world.getLoadedChunks()) {
+				hydrate(chunk);
+			}
+		}
+	}
+
+	public void hydrate(Chunk chunk) {
+		UUID worldId = chunk.getWorld().getUID();
+		long key = chunkKey(chunk.getX(), chunk.getZ());
+		Map<Long, SoilChunk> worldChunks = loaded.get(worldId);
+		if (worldChunks != null && worldChunks.containsKey(key)) {
 			return;
 		}
-		try {
-			String content = Files.readString(fatigueFile.toPath(), StandardCharsets.UTF_8);
-			YamlConfiguration yaml = new YamlConfiguration();
-			yaml.loadFromString(content);
-			ConfigurationSection root = yaml.getConfigurationSection(ROOT);
-			if (root == null) {
-				return;
+		SoilChunk bucket = SoilChunk.fromBytes(chunk.getPersistentDataContainer().get(chunkDataKey, PersistentDataType.BYTE_ARRAY),
+			expiry);
+		SoilChunk moved = remove(pending, worldId, key);
+		if (moved != null) {
+			migrated.computeIfAbsent(worldId, ignored -> new HashMap<>()).put(key, moved);
+			if (bucket == null) {
+				bucket = new SoilChunk();
 			}
-			for (String key : root.getKeys(false)) {
-				ConfigurationSection entry = root.getConfigurationSection(key);
-				if (entry == null) {
-					continue;
-				}
-				SoilKey soilKey = SoilKey.parse(key);
-				if (soilKey == null) {
-					continue;
+			bucket.mergeMissing(moved, expiry);
+		}
+		if (bucket != null) {
+			loaded.computeIfAbsent(worldId, ignored -> new HashMap<>()).put(key, bucket);
+			schedule(loaded, worldId, key, bucket);
+		}
+	}
+
+	public void release(Chunk chunk) {
+		UUID worldId = chunk.getWorld().getUID();
+		long key = chunkKey(chunk.getX(), chunk.getZ());
+		ChunkRef target = new ChunkRef(worldId, key);
+		HarvestBatch batch = queuedHarvests.remove(target);
+		if (batch != null) {
+			queuedCount -= applyHarvests(target, batch, Integer.MAX_VALUE, SoilChunk.toSeconds(System.currentTimeMillis()));
+		}
+		SoilChunk bucket = remove(loaded, worldId, key);
+		if (bucket != null) {
+			writeBack(chunk, bucket);
+		}
+		if (remove(migrated, worldId, key) != null) {
+			changedPending.add(target);
+		}
+	}
+
+	public void flushWorld(World world) {
+		writeDirty(world);
+		Map<Long, SoilChunk> persisted = migrated.remove(world.getUID());
+		if (persisted != null) {
+			for (long key : persisted.keySet()) {
+				changedPending.add(new ChunkRef(world.getUID(), key));
+			}
+		}
+	}
+
+	private void writeDirty(World world) {
+		Map<Long, SoilChunk> worldChunks = loaded.get(world.getUID());
+		if (worldChunks == null) {
+			return;
+		}
+		for (Map.Entry<Long, SoilChunk> bucket : worldChunks.entrySet()) {
+			int chunkX = (int) (bucket.getKey() >> 32);
+			int chunkZ = bucket.getKey().intValue();
+			if (bucket.getValue().isDirty() && world.isChunkLoaded(chunkX, chunkZ)) {
+				writeBack(world.getChunkAt(chunkX, chunkZ), bucket.getValue());
+			}
+		}
+	}
+
+	public boolean importYaml() {
+		Map<UUID, Map<Long, SoilChunk>> imported = new HashMap<>();
+		if (!loadYaml(exportFile, imported)) {
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		for (Map.Entry<UUID, Map<Long, SoilChunk>> world : imported.entrySet()) {
+			World bukkitWorld = Bukkit.getWorld(world.getKey());
+			for (Map.Entry<Long, SoilChunk> bucket : world.getValue().entrySet()) {
+				int chunkX = (int) (bucket.getKey() >> 32);
+				int chunkZ = bucket.getKey().intValue();
+				if (bukkitWorld != null && bukkitWorld.isChunkLoaded(chunkX, chunkZ)) {
+					hydrate(bukkitWorld.getChunkAt(chunkX, chunkZ));
+					merge(loaded, world.getKey(), bucket.getKey(), bucket.getValue());
+				} else {
+					merge(pending, world.getKey(), bucket.getKey(), bucket.getValue());
+					changedPending.add(new ChunkRef(world.getKey(), bucket.getKey()));
 				}
-				SoilEntry state = new SoilEntry();
-				state.fatigue = entry.getDouble("f", 0.0);
-				state.lastUpdate = entry.getLong("lastUpdate", System.currentTimeMillis());
-				state.lastTouched = entry.getLong("lastTouched", state.lastUpdate);
-				entries.put(soilKey, state);
 			}
-			prune(System.currentTimeMillis());
-		} catch (IOException | InvalidConfigurationException e) {
-			plugin.getLogger().warning("Failed to load soil-fatigue.yml: " + e.getMessage());
 		}
+		save(snapshot(now));
+		return true;
 	}
 
-	public void save() {
+	public CompletableFuture<Void> exportYaml() {
 		long now = System.currentTimeMillis();
-		prune(now);
 		YamlConfiguration yaml = new YamlConfiguration();
 		yaml.set("generatedAt", now);
 		ConfigurationSection root = yaml.createSection(ROOT);
-		for (Map.Entry<SoilKey, SoilEntry> entry : entries.entrySet()) {
-			ConfigurationSection section = root.createSection(entry.getKey().toKey());
-			section.set("f", entry.getValue().fatigue);
-			section.set("lastUpdate", entry.getValue().lastUpdate);
-			section.set("lastTouched", entry.getValue().lastTouched);
+		List<SoilValues> entries = new ArrayList<>();
+		collect(loaded, entries);
+		collect(pending, entries);
+		for (SoilValues values : entries) {
+			ConfigurationSection section = root.createSection(new SoilKey(values.worldId(), values.x(), values.y(), values.z()).toKey());
+			section.set("f", values.fatigue());
+			section.set("lastUpdate", values.lastUpdate());
+			section.set("lastTouched", values.lastTouched());
+		}
+		return writer.submit(exportFile, yaml.saveToString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void save() {
+		save(snapshot());
+	}
+
+	public Snapshot snapshot() {
+		return snapshot(System.currentTimeMillis());
+	}
+
+	public void save(Snapshot snapshot) {
+		if (snapshot != null) {
+			store.saveSoil(snapshot);
+		}
+	}
+
+	private Snapshot snapshot(long now) {
+		drainHarvests(Integer.MAX_VALUE);
+		for (World world : Bukkit.getWorlds()) {
+			writeDirty(world);
+		}
+		pruneDue(now);
+		if (changedPending.isEmpty()) {
+			return null;
+		}
+		return pendingSnapshot(now, false);
+	}
+
+	private Snapshot pendingSnapshot(long now, boolean complete) {
+		List<ChunkPosition> changed = null;
+		if (!complete) {
+			changed = new ArrayList<>(changedPending.size());
+			for (ChunkRef chunk : changedPending) {
+				changed.add(new ChunkPosition(chunk.worldId(), (int) (chunk.key() >> 32), (int) chunk.key()));
+			}
+		}
+		changedPending.clear();
+		List<SoilValues> entries = new ArrayList<>();
+		collect(pending, entries);
+		collect(migrated, entries);
+		return new Snapshot(now, entries, changed);
+	}
+
+	private void writeBack(Chunk chunk, SoilChunk bucket) {
+		int now = SoilChunk.toSeconds(System.currentTimeMillis());
+		PersistentDataContainer container = chunk.getPersistentDataContainer();
+		if (bucket.getEarliestExpiry() <= now) {
+			bucket.prune(expiry, now);
+		}
+		if (bucket.size() == 0) {
+			if (container.has(chunkDataKey)) {
+				container.remove(chunkDataKey);
+			}
+		} else if (bucket.isDirty()) {
+			container.set(chunkDataKey, PersistentDataType.BYTE_ARRAY, bucket.toBytes());
+		}
+		bucket.markClean();
+	}
+
+	private void pruneDue(long now) {
+		int nowSeconds = SoilChunk.toSeconds(now);
+		expiryWheel.advance(nowSeconds, scheduled -> expire(scheduled, nowSeconds));
+	}
+
+	private void expire(ExpiryWheel.Scheduled<Due> scheduled, int now) {
+		Due due = scheduled.value();
+		SoilChunk chunk = due.chunk();
+		Map<Long, SoilChunk> worldChunks = due.owner().get(due.worldId());
+		if (worldChunks == null || worldChunks.get(due.key()) != chunk || chunk.getScheduledExpiry() != scheduled.expiresAt()) {
+			return;
+		}
+		chunk.setScheduledExpiry(Integer.MAX_VALUE);
+		int before = chunk.size();
+		chunk.prune(expiry, now);
+		if (due.owner() == pending && chunk.size() != before) {
+			changedPending.add(new ChunkRef(due.worldId(), due.key()));
+		}
+		if (chunk.size() > 0) {
+			schedule(due.owner(), due.worldId(), due.key(), chunk);
+			return;
+		}
+		if (due.owner() == loaded) {
+			World world = Bukkit.getWorld(due.worldId());
+			int chunkX = (int) (due.key() >> 32);
+			int chunkZ = (int) due.key();
+			if (world != null && world.isChunkLoaded(chunkX, chunkZ)) {
+				writeBack(world.getChunkAt(chunkX, chunkZ), chunk);
+			}
+		}
+		remove(due.owner(), due.worldId(), due.key());
+	}
+
+	private void schedule(Map<UUID, Map<Long, SoilChunk>> owner, UUID worldId, long key, SoilChunk chunk) {
+		int expiry = chunk.getEarliestExpiry();
+		if (expiry < chunk.getScheduledExpiry()) {
+			chunk.setScheduledExpiry(expiry);
+			expiryWheel.schedule(new Due(owner, worldId, key, chunk), expiry);
+		}
+	}
+
+	private void merge(Map<UUID, Map<Long, SoilChunk>> owner, UUID worldId, long key, SoilChunk source) {
+		SoilChunk chunk = bucketAt(owner, worldId, key);
+		chunk.mergeMissing(source, expiry);
+		schedule(owner, worldId, key, chunk);
+	}
+
+	private void collect(Map<UUID, Map<Long, SoilChunk>> buckets, List<SoilValues> entries) {
+		for (Map.Entry<UUID, Map<Long, SoilChunk>> world : buckets.entrySet()) {
+			for (Map.Entry<Long, SoilChunk> bucket : world.getValue().entrySet()) {
+				int baseX = (int) (bucket.getKey() >> 32) << 4;
+				int baseZ = bucket.getKey().intValue() << 4;
+				SoilChunk chunk = bucket.getValue();
+				for (int slot = 0; slot < chunk.capacity(); slot++) {
+					if (!chunk.isOccupied(slot)) {
+						continue;
+					}
+					int key = chunk.keyAt(slot);
+					entries.add(new SoilValues(world.getKey(), baseX + SoilChunk.localX(key), SoilChunk.blockY(key), baseZ + SoilChunk.localZ(key),
+						chunk.fatigueAt(slot), SoilChunk.toMillis(chunk.lastUpdateAt(slot)), SoilChunk.toMillis(chunk.lastTouchedAt(slot))));
+				}
+			}
+		}
+	}
+
+	private void put(Map<UUID, Map<Long, SoilChunk>> buckets, UUID worldId, int x, int y, int z, double fatigue, long lastUpdate,
+					 long lastTouched) {
+		long key = chunkKey(x >> 4, z >> 4);
+		SoilChunk chunk = bucketAt(buckets, worldId, key);
+		int updatedAt = SoilChunk.toSeconds(lastUpdate);
+		int touchedAt = SoilChunk.toSeconds(lastTouched);
+		int slot = chunk.insert(SoilChunk.pack(x, y, z), updatedAt);
+		chunk.set(slot, (float) fatigue, updatedAt, touchedAt, expiry.expiresAt((float) fatigue, updatedAt, touchedAt));
+		schedule(buckets, worldId, key, chunk);
+	}
+
+	private SoilChunk bucketAt(Map<UUID, Map<Long, SoilChunk>> buckets, UUID worldId, long key) {
+		return buckets.computeIfAbsent(worldId, ignored -> new HashMap<>()).computeIfAbsent(key, ignored -> new SoilChunk());
+	}
+
+	private SoilChunk remove(Map<UUID, Map<Long, SoilChunk>> buckets, UUID worldId, long key) {
+		Map<Long, SoilChunk> worldChunks = buckets.get(worldId);
+		if (worldChunks == null) {
+			return null;
 		}
-		try {
-			AtomicFileWriter.writeAtomically(fatigueFile, yaml.saveToString().getBytes());
-		} catch (IOException e) {
-			plugin.getLogger().warning("Failed to save soil-fatigue.yml: " + e.getMessage());
+		SoilChunk removed = worldChunks.remove(key);
+		if (worldChunks.isEmpty()) {
+			buckets.remove(worldId);
 		}
+		return removed;
+	}
+
+	private boolean loadYaml(File file, Map<UUID, Map<Long, SoilChunk>> target) {
+		YamlConfiguration yaml = YamlFiles.load(file, plugin.getLogger());
+		if (yaml == null) {
+			return false;
+		}
+		ConfigurationSection root = yaml.getConfigurationSection(ROOT);
+		if (root == null) {
+			return true;
+		}
+		for (String key : root.getKeys(false)) {
+			ConfigurationSection entry = root.getConfigurationSection(key);
+			if (entry == null) {
+				continue;
+			}
+			SoilKey soilKey = SoilKey.parse(key);
+			if (soilKey == null) {
+				continue;
+			}
+			long lastUpdate = entry.getLong("lastUpdate", System.currentTimeMillis());
+			put(target, soilKey.worldId(), soilKey.x(), soilKey.y(), soilKey.z(), entry.getDouble("f", 0.0), lastUpdate,
+				entry.getLong("lastTouched", lastUpdate));
+		}
+		return true;
 	}
 
 	public double recordHarvest(Block farmlandBlock) {
 		if (farmlandBlock == null || farmlandBlock.getWorld() == null) {
 			return 1.0;
 		}
-		long now = System.currentTimeMillis();
-		double perHarvest = configManager.getConfig().getDouble("farming.fatigue.perHarvest", 0.12);
-		SoilKey key = SoilKey.fromBlock(farmlandBlock);
-		SoilEntry entry = entries.computeIfAbsent(key, ignored -> new SoilEntry());
-		double fatigue = applyRecovery(entry, now);
-		fatigue = clamp(fatigue + Math.max(0.0, perHarvest), 0.0, 1.0);
-		entry.fatigue = fatigue;
-		entry.lastUpdate = now;
-		entry.lastTouched = now;
-		return toMultiplier(fatigue);
+		UUID worldId = farmlandBlock.getWorld().getUID();
+		long key = chunkKey(farmlandBlock.getX() >> 4, farmlandBlock.getZ() >> 4);
+		int block = SoilChunk.pack(farmlandBlock.getX(), farmlandBlock.getY(), farmlandBlock.getZ());
+		ChunkRef target = new ChunkRef(worldId, key);
+		HarvestBatch batch = queuedHarvests.computeIfAbsent(target, ignored -> new HarvestBatch());
+		double fatigue = settings.perHarvest() * batch.pendingHits(block);
+		Map<Long, SoilChunk> worldChunks = loaded.get(worldId);
+		SoilChunk chunk = worldChunks != null ? worldChunks.get(key) : null;
+		if (chunk != null) {
+			int slot = chunk.find(block);
+			if (slot >= 0) {
+				fatigue += recovered(chunk.fatigueAt(slot), chunk.lastUpdateAt(slot), SoilChunk.toSeconds(System.currentTimeMillis()));
+			}
+		}
+		batch.add(block);
+		queuedCount++;
+		return toMultiplier(clamp(fatigue + settings.perHarvest(), 0.0, 1.0));
+	}
+
+	public void drainHarvests() {
+		if (queuedCount == 0) {
+			return;
+		}
+		int budget = settings.harvestsPerTick();
+		if (queuedCount > budget * MAX_BACKLOG_TICKS) {
+			catchUpBudget = Math.min(Math.max(catchUpBudget, budget) * 2, budget * MAX_CATCH_UP_FACTOR);
+		} else {
+			catchUpBudget = budget;
+		}
+		drainHarvests(catchUpBudget);
 	}
 
 	public void tagHarvestedItem(ItemStack item, double multiplier) {
 		if (item == null) {
 			return;
 		}
+		double normalizedMultiplier = normalizeMultiplier(multiplier);
+		if (!item.hasItemMeta()) {
+			ItemMeta prepared = preparedMeta.computeIfAbsent(new PreparedTag(item.getType(), normalizedMultiplier), this::prepareMeta);
+			if (prepared != null) {
+				item.setItemMeta(prepared);
+				return;
+			}
+		}
 		ItemMeta meta = item.getItemMeta();
 		if (meta == null) {
 			return;
 		}
-		double normalizedMultiplier = normalizeMultiplier(multiplier);
 		PersistentDataContainer container = meta.getPersistentDataContainer();
 		container.set(fatigueKey, PersistentDataType.DOUBLE, normalizedMultiplier);
 		item.setItemMeta(meta);
@@ -135,40 +443,79 @@ public class SoilFatigueService {
 		return value;
 	}
 
-	private double applyRecovery(SoilEntry entry, long now) {
-		if (entry.lastUpdate <= 0) {
-			entry.lastUpdate = now;
-			return entry.fatigue;
+	private double recovered(double fatigue, int lastUpdate, int now) {
+		return Math.max(0.0, fatigue - settings.recoveryPerSecond() * Math.max(0, now - lastUpdate));
+	}
+
+	private void drainHarvests(int budget) {
+		int now = SoilChunk.toSeconds(System.currentTimeMillis());
+		Iterator<Map.Entry<ChunkRef, HarvestBatch>> iterator = queuedHarvests.entrySet().iterator();
+		while (budget > 0 && iterator.hasNext()) {
+			Map.Entry<ChunkRef, HarvestBatch> entry = iterator.next();
+			int applied = applyHarvests(entry.getKey(), entry.getValue(), budget, now);
+			budget -= applied;
+			queuedCount -= applied;
+			if (entry.getValue().isDone()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private int applyHarvests(ChunkRef target, HarvestBatch batch, int limit, int now) {
+		Map<UUID, Map<Long, SoilChunk>> owner = loaded;
+		Map<Long, SoilChunk> worldChunks = loaded.get(target.worldId());
+		if (worldChunks == null || !worldChunks.containsKey(target.key())) {
+			World world = Bukkit.getWorld(target.worldId());
+			int chunkX = (int) (target.key() >> 32);
+			int chunkZ = (int) target.key();
+			if (world != null && world.isChunkLoaded(chunkX, chunkZ)) {
+				hydrate(world.getChunkAt(chunkX, chunkZ));
+			} else {
+				owner = pending;
+				changedPending.add(target);
+			}
+		}
+		SoilChunk chunk = bucketAt(owner, target.worldId(), target.key());
+		int end = (int) Math.min(batch.size, (long) batch.applied + limit);
+		for (int i = batch.applied; i < end; i++) {
+			int slot = chunk.insert(batch.blocks[i], now);
+			batch.release(batch.blocks[i]);
+			double fatigue = clamp(recovered(chunk.fatigueAt(slot), chunk.lastUpdateAt(slot), now) + settings.perHarvest(), 0.0, 1.0);
+			chunk.set(slot, (float) fatigue, now, now, expiresAt(fatigue, now, now));
 		}
-		double hours = Math.max(0.0, (now - entry.lastUpdate) / 3600000.0);
-		if (hours <= 0.0) {
-			return entry.fatigue;
+		schedule(owner, target.worldId(), target.key(), chunk);
+		int applied = end - batch.applied;
+		batch.applied = end;
+		return applied;
+	}
+
+	private ItemMeta prepareMeta(PreparedTag tag) {
+		ItemMeta meta = new ItemStack(tag.material()).getItemMeta();
+		if (meta != null) {
+			meta.getPersistentDataContainer().set(fatigueKey, PersistentDataType.DOUBLE, tag.multiplier());
 		}
-		double recoveryPerDay = Math.max(0.0, configManager.getConfig().getDouble("farming.fatigue.recoveryPerDay", 0.18));
-		double recoveryPerHour = recoveryPerDay / 24.0;
-		entry.fatigue = Math.max(0.0, entry.fatigue - recoveryPerHour * hours);
-		entry.lastUpdate = now;
-		return entry.fatigue;
+		return meta;
 	}
 
-	private void prune(long now) {
-		double pruneDays = Math.max(1.0, configManager.getConfig().getDouble("farming.fatigue.pruneDays", 14.0));
-		long pruneMs = (long) (pruneDays * 86400000L);
-		for (Map.Entry<SoilKey, SoilEntry> entry : entries.entrySet()) {
-			SoilEntry state = entry.getValue();
-			applyRecovery(state, now);
+	private int expiresAt(double fatigue, int lastUpdate, int lastTouched) {
+		long recoveredAt = lastUpdate;
+		if (fatigue > 0.0) {
+			double recoveryPerSecond = settings.recoveryPerSecond();
+			recoveredAt = recoveryPerSecond > 0.0 ? lastUpdate + (long) Math.ceil(fatigue / recoveryPerSecond) : Integer.MAX_VALUE;
 		}
-		entries.entrySet().removeIf(entry -> entry.getValue().fatigue <= 0.0
-			&& now - entry.getValue().lastTouched > pruneMs);
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(recoveredAt, (long) lastTouched + settings.pruneSeconds()));
+	}
+
+	private static long chunkKey(int chunkX, int chunkZ) {
+		return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
 	}
 
 	private double toMultiplier(double fatigue) {
-		double minMultiplier = clamp(configManager.getConfig().getDouble("farming.fatigue.minMultiplier", 0.25), 0.0, 1.0);
-		return clamp(1.0 - fatigue, minMultiplier, 1.0);
+		return clamp(1.0 - fatigue, settings.minMultiplier(), 1.0);
 	}
 
 	private double normalizeMultiplier(double multiplier) {
-		double step = configManager.getConfig().getDouble("farming.fatigue.stackStep", 0.05);
+		double step = settings.stackStep();
 		if (step <= 0.0) {
 			return multiplier;
 		}
@@ -181,12 +528,64 @@ public class SoilFatigueService {
 		return Math.min(max, Math.max(min, value));
 	}
 
-	private record SoilKey(UUID worldId, int x, int y, int z) {
-		private static SoilKey fromBlock(Block block) {
-			World world = block.getWorld();
-			return new SoilKey(world.getUID(), block.getX(), block.getY(), block.getZ());
+	public record Snapshot(long capturedAt, List<SoilValues> entries, List<ChunkPosition> changedChunks) {
+	}
+
+	public record ChunkPosition(UUID worldId, int chunkX, int chunkZ) {
+	}
+
+	private record Settings(double perHarvest, double recoveryPerSecond, int pruneSeconds, double minMultiplier, double stackStep,
+							int harvestsPerTick) {
+		private static Settings from(ConfigManager configManager) {
+			return new Settings(Math.max(0.0, configManager.getConfig().getDouble("farming.fatigue.perHarvest", 0.12)),
+				Math.max(0.0, configManager.getConfig().getDouble("farming.fatigue.recoveryPerDay", 0.18)) / 86400.0,
+				(int) (Math.max(1.0, configManager.getConfig().getDouble("farming.fatigue.pruneDays", 14.0)) * 86400.0),
+				Math.min(1.0, Math.max(0.0, configManager.getConfig().getDouble("farming.fatigue.minMultiplier", 0.25))),
+				configManager.getConfig().getDouble("farming.fatigue.stackStep", 0.05),
+				Math.max(1, configManager.getConfig().getInt("farming.fatigue.harvestsPerTick", 2000)));
 		}
+	}
+
+	private record ChunkRef(UUID worldId, long key) {
+	}
+
+	private record PreparedTag(Material material, double multiplier) {
+	}
+
+	private static class HarvestBatch {
+		private final Map<Integer, Integer> pendingHits = new HashMap<>();
+		private int[] blocks = new int[8];
+		private int size;
+		private int applied;
 
+		private void add(int block) {
+			if (size == blocks.length) {
+				blocks = Arrays.copyOf(blocks, size * 2);
+			}
+			blocks[size++] = block;
+			pendingHits.merge(block, 1, Integer::sum);
+		}
+
+		private int pendingHits(int block) {
+			return pendingHits.getOrDefault(block, 0);
+		}
+
+		private void release(int block) {
+			pendingHits.computeIfPresent(block, (ignored, hits) -> hits > 1 ? hits - 1 : null);
+		}
+
+		private boolean isDone() {
+			return applied >= size;
+		}
+	}
+
+	private record Due(Map<UUID, Map<Long, SoilChunk>> owner, UUID worldId, long key, SoilChunk chunk) {
+	}
+
+	public record SoilValues(UUID worldId, int x, int y, int z, double fatigue, long lastUpdate, long lastTouched) {
+	}
+
+	private record SoilKey(UUID worldId, int x, int y, int z) {
 		private String toKey() {
 			return worldId + ":" + x + ":" + y + ":" + z;
 		}
@@ -210,10 +609,4 @@ public class SoilFatigueService {
 			}
 		}
 	}
-
-	private static class SoilEntry {
-		private double fatigue;
-		private long lastUpdate;
-		private long lastTouched;
-	}
 }
@@ -1,17 +1,21 @@
 package com.daytonjwatson.ledger.gui;
 
 import com.daytonjwatson.ledger.config.ConfigManager;
+import com.daytonjwatson.ledger.farming.SoilFatigueService;
 import com.daytonjwatson.ledger.config.PriceBandTable;
 import com.daytonjwatson.ledger.config.PriceGenerator;
 import com.daytonjwatson.ledger.config.PriceTable;
 import com.daytonjwatson.ledger.market.ItemTagService;
 import com.daytonjwatson.ledger.market.MarketService;
+import com.daytonjwatson.ledger.market.MarketStorageYaml;
 import com.daytonjwatson.ledger.market.PriceBandTag;
+import com.daytonjwatson.ledger.market.PriceBoard;
 import com.daytonjwatson.ledger.mobs.MobPayoutService;
 import com.daytonjwatson.ledger.upgrades.UpgradeDefinition;
 import com.daytonjwatson.ledger.upgrades.UpgradeService;
 import com.daytonjwatson.ledger.economy.MoneyService;
 import com.daytonjwatson.ledger.util.ItemKeyUtil;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.command.Command;
@@ -19,32 +23,44 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class HubCommand implements CommandExecutor {
+	private final JavaPlugin plugin;
+	private final PersistenceWriter persistenceWriter;
 	private final GuiManager guiManager;
 	private final ConfigManager configManager;
 	private final MarketService marketService;
 	private final MobPayoutService mobPayoutService;
 	private final UpgradeService upgradeService;
 	private final MoneyService moneyService;
+	private final MarketStorageYaml marketStorage;
+	private final SoilFatigueService soilFatigueService;
 
-	public HubCommand(GuiManager guiManager, ConfigManager configManager, MarketService marketService, MobPayoutService mobPayoutService,
-					  UpgradeService upgradeService, MoneyService moneyService) {
+	public HubCommand(JavaPlugin plugin, PersistenceWriter persistenceWriter, GuiManager guiManager, ConfigManager configManager,
+					  MarketService marketService, MobPayoutService mobPayoutService, UpgradeService upgradeService, MoneyService moneyService,
+					  MarketStorageYaml marketStorage, SoilFatigueService soilFatigueService) {
+		this.plugin = plugin;
+		this.persistenceWriter = persistenceWriter;
 		this.guiManager = guiManager;
 		this.configManager = configManager;
 		this.marketService = marketService;
 		this.mobPayoutService = mobPayoutService;
 		this.upgradeService = upgradeService;
 		this.moneyService = moneyService;
+		this.marketStorage = marketStorage;
+		this.soilFatigueService = soilFatigueService;
 	}
 
 	@Override
@@ -66,8 +82,11 @@ public class HubCommand implements CommandExecutor {
 			case "price" -> handlePriceLookup(sender, args);
 			case "gensample" -> handleSample(sender);
 			case "upgrades" -> handleUpgrades(sender, args);
+			case "cachestats" -> handleCacheStats(sender);
+			case "export" -> handleExport(sender, args);
+			case "import" -> handleImport(sender, args);
 			default -> {
-				sender.sendMessage(ChatColor.YELLOW + "Usage: /ledger [genprices|reloadprices|reload upgrades|price|gensample|upgrades <player>]");
+				sender.sendMessage(ChatColor.YELLOW + "Usage: /ledger [genprices|reloadprices|reload upgrades|price|gensample|upgrades <player>|cachestats|export [market|players|soil]|import <market|players|soil>]");
 				yield true;
 			}
 		};
@@ -82,16 +101,17 @@ public class HubCommand implements CommandExecutor {
 		PriceBandTable bandTable = new PriceBandTable(configManager.getPriceBands());
 		PriceGenerator generator = new PriceGenerator(new ItemTagService(), bandTable,
 			configManager.isPriceGenerationDebugEnabled());
-		try {
-			generator.write(pricesFile, configManager.getPrices());
-		} catch (IOException e) {
-			sender.sendMessage(ChatColor.RED + "Failed to generate prices.yml: " + e.getMessage());
-			return true;
-		}
-		configManager.reloadPrices();
-		marketService.reloadPrices();
-		mobPayoutService.reloadPrices();
-		sender.sendMessage(ChatColor.GREEN + "Generated prices.yml.");
+		generator.write(persistenceWriter, pricesFile, configManager.getPrices()).whenComplete((ignored, error) ->
+			Bukkit.getScheduler().runTask(plugin, () -> {
+				if (error != null) {
+					sender.sendMessage(ChatColor.RED + "Failed to generate prices.yml: " + error.getMessage());
+					return;
+				}
+				configManager.reloadPrices();
+				marketService.reloadPrices();
+				mobPayoutService.reloadPrices();
+				sender.sendMessage(ChatColor.GREEN + "Generated prices.yml.");
+			}));
 		return true;
 	}
 
@@ -120,12 +140,12 @@ public class HubCommand implements CommandExecutor {
 			return true;
 		}
 		String key = ItemKeyUtil.toKey(material);
-		PriceTable.PriceEntry entry = marketService.getPriceTable().getEntry(key);
+		PriceTable.PriceEntry entry = marketService.getPriceTable().getEntry(material);
 		if (entry == null) {
 			sender.sendMessage(ChatColor.RED + "No price entry for " + key + ".");
 			return true;
 		}
-		double current = marketService.getSellPrice(key);
+		double current = marketService.getSellPrice(material);
 		String tag = entry.getTag() == null || entry.getTag().isEmpty() ? new ItemTagService().getBaseTag(material).name() : entry.getTag();
 		sender.sendMessage(ChatColor.YELLOW + "Price: " + key);
 		sender.sendMessage(ChatColor.GRAY + "Tag: " + ChatColor.WHITE + tag);
@@ -136,6 +156,25 @@ public class HubCommand implements CommandExecutor {
 		return true;
 	}
 
+	private boolean handleCacheStats(CommandSender sender) {
+		if (!isAdmin(sender)) {
+			sender.sendMessage(ChatColor.RED + "You do not have permission.");
+			return true;
+		}
+		PriceBoard.Stats stats = marketService.getPriceBoardStats();
+		sender.sendMessage(ChatColor.YELLOW + "Price board:");
+		sender.sendMessage(ChatColor.GRAY + "Reads: " + ChatColor.WHITE + stats.reads());
+		sender.sendMessage(ChatColor.GRAY + "Recomputes: " + ChatColor.WHITE + stats.recomputes());
+		sender.sendMessage(ChatColor.GRAY + "Publishes: " + ChatColor.WHITE + stats.publishes());
+		sender.sendMessage(ChatColor.GRAY + "Tracked items: " + ChatColor.WHITE + stats.tracked());
+		PersistenceWriter.Stats writerStats = persistenceWriter.getStats();
+		sender.sendMessage(ChatColor.YELLOW + "Persistence writer:");
+		sender.sendMessage(ChatColor.GRAY + "Written: " + ChatColor.WHITE + writerStats.written());
+		sender.sendMessage(ChatColor.GRAY + "Coalesced: " + ChatColor.WHITE + writerStats.coalesced());
+		sender.sendMessage(ChatColor.GRAY + "Pending: " + ChatColor.WHITE + writerStats.pending());
+		return true;
+	}
+
 	private boolean handleSample(CommandSender sender) {
 		if (!isAdmin(sender)) {
 			sender.sendMessage(ChatColor.RED + "You do not have permission.");
@@ -184,6 +223,18 @@ public class HubCommand implements CommandExecutor {
 		}
 		String targetName = args[1];
 		UUID uuid = Bukkit.getOfflinePlayer(targetName).getUniqueId();
+		if (moneyService.isCached(uuid)) {
+			sendUpgrades(sender, targetName, uuid);
+			return true;
+		}
+		Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+			moneyService.preload(uuid);
+			Bukkit.getScheduler().runTask(plugin, () -> sendUpgrades(sender, targetName, uuid));
+		});
+		return true;
+	}
+
+	private void sendUpgrades(CommandSender sender, String targetName, UUID uuid) {
 		Map<String, Integer> storedUpgrades = new LinkedHashMap<>(moneyService.getUpgradeLevels(uuid));
 		List<UpgradeDefinition> definitions = upgradeService.getDefinitions().values().stream()
 			.sorted(Comparator.comparing(UpgradeDefinition::getId))
@@ -205,7 +256,6 @@ public class HubCommand implements CommandExecutor {
 		}
 		sender.sendMessage(ChatColor.GRAY + "Vendor tiers unlocked: " + formatVendorTiers(uuid));
 		sender.sendMessage(ChatColor.GRAY + "Refinement level: " + upgradeService.getHighestRefinementLevel(uuid));
-		return true;
 	}
 
 	private String formatVendorTiers(UUID uuid) {
@@ -218,6 +268,76 @@ public class HubCommand implements CommandExecutor {
 		return tiers.isEmpty() ? "None" : String.join(", ", tiers);
 	}
 
+	private boolean handleExport(CommandSender sender, String[] args) {
+		if (!isAdmin(sender)) {
+			sender.sendMessage(ChatColor.RED + "You do not have permission.");
+			return true;
+		}
+		String target = args.length >= 2 ? args[1].toLowerCase() : "all";
+		List<CompletableFuture<Void>> exports = new ArrayList<>();
+		if (target.equals("market") || target.equals("all")) {
+			exports.add(marketStorage.exportYaml());
+		}
+		if (target.equals("players") || target.equals("all")) {
+			exports.add(moneyService.exportYaml());
+		}
+		if (target.equals("soil") || target.equals("all")) {
+			exports.add(soilFatigueService.exportYaml());
+		}
+		if (exports.isEmpty()) {
+			sender.sendMessage(ChatColor.YELLOW + "Usage: /ledger export [market|players|soil]");
+			return true;
+		}
+		CompletableFuture.allOf(exports.toArray(new CompletableFuture[0])).whenComplete((ignored, error) ->
+			Bukkit.getScheduler().runTask(plugin, () -> {
+				if (error != null) {
+					sender.sendMessage(ChatColor.RED + "Export failed: " + error.getMessage());
+					return;
+				}
+				sender.sendMessage(ChatColor.GREEN + "Exported " + target + " data to the export folder.");
+			}));
+		return true;
+	}
+
+	private boolean handleImport(CommandSender sender, String[] args) {
+		if (!isAdmin(sender)) {
+			sender.sendMessage(ChatColor.RED + "You do not have permission.");
+			return true;
+		}
+		if (args.length < 2) {
+			sender.sendMessage(ChatColor.YELLOW + "Usage: /ledger import <market|players|soil>");
+			return true;
+		}
+		String target = args[1].toLowerCase();
+		boolean imported;
+		switch (target) {
+			case "market" -> {
+				imported = marketStorage.importYaml();
+				if (imported) {
+					marketService.reloadPrices();
+				}
+			}
+			case "players" -> {
+				Set<UUID> players = moneyService.importYaml();
+				imported = players != null;
+				if (imported) {
+					players.forEach(upgradeService::invalidateModifiers);
+				}
+			}
+			case "soil" -> imported = soilFatigueService.importYaml();
+			default -> {
+				sender.sendMessage(ChatColor.YELLOW + "Usage: /ledger import <market|players|soil>");
+				return true;
+			}
+		}
+		if (!imported) {
+			sender.sendMessage(ChatColor.RED + "Unable to import " + target + " data from the export folder.");
+			return true;
+		}
+		sender.sendMessage(ChatColor.GREEN + "Imported " + target + " data from the export folder.");
+		return true;
+	}
+
 	private boolean isAdmin(CommandSender sender) {
 		return sender.isOp() || sender.hasPermission("ledger.admin");
 	}
@@ -138,7 +138,6 @@ public class SellMenu implements LedgerMenu {
 		Set<String> distinctTypes = new HashSet<>();
 		Map<String, Integer> unsellableReasons = new LinkedHashMap<>();
 		List<ItemStack> sellableItems = new ArrayList<>();
-		Map<Material, Integer> sellableQuantities = new LinkedHashMap<>();
 		for (int slot : SELL_SLOTS) {
 			ItemStack item = inventory.getItem(slot);
 			if (item == null || item.getType() == Material.AIR) {
@@ -156,7 +155,6 @@ public class SellMenu implements LedgerMenu {
 			distinctTypes.add(ItemKeyUtil.toKey(item.getType()));
 			total += Math.round(price * item.getAmount());
 			sellableItems.add(item);
-			sellableQuantities.merge(item.getType(), item.getAmount(), Integer::sum);
 		}
 		int distinctCount = distinctTypes.size();
 		long upgradeTotal = 0L;
@@ -167,7 +165,7 @@ public class SellMenu implements LedgerMenu {
 			}
 			upgradeTotal += Math.round(price * item.getAmount());
 		}
-		long afterMarketValue = marketService.getProjectedSellValueAfterMarketChange(sellableItems, sellableQuantities);
+		long afterMarketValue = marketService.getProjectedSellValueAfterMarketChange(sellableItems);
 		long marketDelta = afterMarketValue - total;
 		long upgradeBonus = upgradeTotal - total;
 		return new InventorySummary(total, marketDelta, distinctCount, upgradeBonus, unsellableReasons);
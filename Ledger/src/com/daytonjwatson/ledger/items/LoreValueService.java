@@ -3,6 +3,7 @@ package com.daytonjwatson.ledger.items;
 import com.daytonjwatson.ledger.config.ConfigManager;
 import com.daytonjwatson.ledger.market.MarketService;
 import com.daytonjwatson.ledger.market.SellValidator;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -10,8 +11,9 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
-import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
@@ -20,13 +22,19 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class LoreValueService implements Listener {
 	private final JavaPlugin plugin;
 	private final MarketService marketService;
 	private final SellValidator sellValidator;
 	private final NamespacedKey priceKey;
+	private final Map<UUID, PlayerSlots> players = new HashMap<>();
 
 	public LoreValueService(JavaPlugin plugin, ConfigManager configManager, MarketService marketService, SellValidator sellValidator) {
 		this.plugin = plugin;
@@ -39,19 +47,71 @@ public class LoreValueService implements Listener {
 		if (player == null) {
 			return;
 		}
+		refreshSlots(player, slotsFor(player), true);
+	}
+
+	public void refreshDirty(Player player) {
+		if (player == null) {
+			return;
+		}
+		PlayerSlots slots = players.get(player.getUniqueId());
+		if (slots != null) {
+			refreshSlots(player, slots, false);
+		}
+	}
+
+	public void invalidate(Player player) {
+		if (player != null) {
+			slotsFor(player).markAll();
+		}
+	}
+
+	public void refreshModifiers(UUID uuid) {
+		plugin.getServer().getScheduler().runTask(plugin, () -> {
+			Player player = Bukkit.getPlayer(uuid);
+			if (player != null) {
+				invalidate(player);
+				refreshDirty(player);
+			}
+		});
+	}
+
+	private void refreshSlots(Player player, PlayerSlots slots, boolean checkPrices) {
+		slots.scheduled = false;
 		ItemStack[] contents = player.getInventory().getContents();
+		slots.ensureCapacity(contents.length);
 		for (int i = 0; i < contents.length; i++) {
 			ItemStack item = contents[i];
-			if (item == null || item.getType() == Material.AIR) {
+			Material material = item == null ? Material.AIR : item.getType();
+			int amount = item == null ? 0 : item.getAmount();
+			int metaHash = metaHash(item);
+			boolean changed = slots.dirty.get(i) || slots.materials[i] != material || slots.amounts[i] != amount
+				|| slots.metaHashes[i] != metaHash;
+			double published = 0.0;
+			if (material != Material.AIR && (changed || checkPrices)) {
+				published = marketService.getSellPrice(material);
+				changed |= Math.abs(slots.published[i] - published) >= 0.01;
+			}
+			if (!changed) {
 				continue;
 			}
-			if (item.getItemMeta() instanceof BlockStateMeta) {
+			slots.dirty.clear(i);
+			slots.materials[i] = material;
+			slots.amounts[i] = amount;
+			slots.published[i] = published;
+			slots.metaHashes[i] = metaHash;
+			if (material == Material.AIR || item.getItemMeta() instanceof BlockStateMeta) {
 				continue;
 			}
 			updateItemLore(player, item);
+			slots.metaHashes[i] = metaHash(item);
 		}
 	}
 
+	private int metaHash(ItemStack item) {
+		return item == null || !item.hasItemMeta() ? 0 : item.getItemMeta().hashCode();
+	}
+
 	public void updateItemLore(Player player, ItemStack item) {
 		if (item == null || item.getType() == Material.AIR) {
 			return;
@@ -113,6 +173,33 @@ public class LoreValueService implements Listener {
 		}
 	}
 
+	private PlayerSlots slotsFor(Player player) {
+		return players.computeIfAbsent(player.getUniqueId(), ignored -> new PlayerSlots());
+	}
+
+	private void scheduleRefresh(Player player, PlayerSlots slots) {
+		if (slots.scheduled) {
+			return;
+		}
+		slots.scheduled = true;
+		plugin.getServer().getScheduler().runTask(plugin, () -> refreshDirty(player));
+	}
+
+	private void clearMatching(Player player, PlayerSlots slots, Material material) {
+		if (material == null || material == Material.AIR) {
+			return;
+		}
+		ItemStack[] contents = player.getInventory().getContents();
+		for (int i = 0; i < contents.length; i++) {
+			ItemStack item = contents[i];
+			if (item == null || item.getType() != material) {
+				continue;
+			}
+			clearPriceMeta(item);
+			slots.markDirty(i);
+		}
+	}
+
 	@EventHandler
 	public void onInventoryOpen(InventoryOpenEvent event) {
 		if (event.getPlayer() instanceof Player player) {
@@ -120,49 +207,86 @@ public class LoreValueService implements Listener {
 		}
 	}
 
-	@EventHandler
-	public void onItemHeld(PlayerItemHeldEvent event) {
-		updatePlayerInventory(event.getPlayer());
-	}
-
 	@EventHandler
 	public void onInventoryClick(InventoryClickEvent event) {
 		if (event.getWhoClicked() instanceof Player player) {
+			PlayerSlots slots = slotsFor(player);
 			ItemStack current = event.getCurrentItem();
 			ItemStack cursor = event.getCursor();
 			clearPriceMeta(current);
 			clearPriceMeta(cursor);
-			ItemStack[] contents = player.getInventory().getContents();
-			for (ItemStack item : contents) {
-				if (item == null || item.getType() == Material.AIR) {
-					continue;
-				}
-				if (item.getItemMeta() instanceof BlockStateMeta) {
-					continue;
+			if (event.getClickedInventory() == player.getInventory()) {
+				slots.markDirty(event.getSlot());
+			}
+			if (event.getHotbarButton() >= 0) {
+				slots.markDirty(event.getHotbarButton());
+			}
+			Material currentType = current != null ? current.getType() : null;
+			Material cursorType = cursor != null ? cursor.getType() : null;
+			clearMatching(player, slots, currentType);
+			if (cursorType != currentType) {
+				clearMatching(player, slots, cursorType);
+			}
+			scheduleRefresh(player, slots);
+		}
+	}
+
+	@EventHandler
+	public void onInventoryDrag(InventoryDragEvent event) {
+		if (event.getWhoClicked() instanceof Player player) {
+			PlayerSlots slots = slotsFor(player);
+			for (int rawSlot : event.getRawSlots()) {
+				if (event.getView().getInventory(rawSlot) == player.getInventory()) {
+					slots.markDirty(event.getView().convertSlot(rawSlot));
 				}
-				clearPriceMeta(item);
 			}
-			plugin.getServer().getScheduler().runTask(plugin, () -> updatePlayerInventory(player));
+			scheduleRefresh(player, slots);
 		}
 	}
 
 	@EventHandler
 	public void onPickup(EntityPickupItemEvent event) {
 		if (event.getEntity() instanceof Player player) {
+			PlayerSlots slots = slotsFor(player);
 			ItemStack stack = event.getItem().getItemStack();
 			clearPriceMeta(stack);
 			event.getItem().setItemStack(stack);
-			ItemStack[] contents = player.getInventory().getContents();
-			for (ItemStack item : contents) {
-				if (item == null || item.getType() == Material.AIR) {
-					continue;
-				}
-				if (item.getItemMeta() instanceof BlockStateMeta) {
-					continue;
-				}
-				clearPriceMeta(item);
+			clearMatching(player, slots, stack.getType());
+			scheduleRefresh(player, slots);
+		}
+	}
+
+	@EventHandler
+	public void onQuit(PlayerQuitEvent event) {
+		players.remove(event.getPlayer().getUniqueId());
+	}
+
+	private static class PlayerSlots {
+		private final BitSet dirty = new BitSet();
+		private Material[] materials = new Material[0];
+		private int[] amounts = new int[0];
+		private double[] published = new double[0];
+		private int[] metaHashes = new int[0];
+		private boolean scheduled;
+
+		private void ensureCapacity(int size) {
+			if (materials.length >= size) {
+				return;
 			}
-			plugin.getServer().getScheduler().runTask(plugin, () -> updatePlayerInventory(player));
+			materials = Arrays.copyOf(materials, size);
+			amounts = Arrays.copyOf(amounts, size);
+			published = Arrays.copyOf(published, size);
+			metaHashes = Arrays.copyOf(metaHashes, size);
+		}
+
+		private void markDirty(int slot) {
+			if (slot >= 0) {
+				dirty.set(slot);
+			}
+		}
+
+		private void markAll() {
+			dirty.set(0, Math.max(materials.length, 41));
 		}
 	}
 }
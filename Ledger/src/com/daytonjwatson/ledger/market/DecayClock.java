@@ -0,0 +1,52 @@
+package com.daytonjwatson.ledger.market;
+
+public class DecayClock {
+	private static final double RENORMALIZE_BELOW = 1.0 / (1 << 20);
+	private final double lambdaPerMs;
+	private volatile long epoch;
+	private volatile double factor = 1.0;
+
+	public DecayClock(double halfLifeHours, long now) {
+		double halfLifeMs = Math.max(1.0, halfLifeHours * 3600000.0);
+		this.lambdaPerMs = Math.log(2) / halfLifeMs;
+		this.epoch = now;
+	}
+
+	public long getEpoch() {
+		return epoch;
+	}
+
+	public double getFactor() {
+		return factor;
+	}
+
+	public double fromStored(double stored) {
+		return stored * factor;
+	}
+
+	public double toStored(double value) {
+		return value / factor;
+	}
+
+	public double factorFor(long elapsedMs) {
+		if (elapsedMs <= 0) {
+			return 1.0;
+		}
+		return Math.exp(-lambdaPerMs * elapsedMs);
+	}
+
+	public void tick(long now) {
+		factor = factorFor(now - epoch);
+	}
+
+	public boolean needsRenormalize() {
+		return factor < RENORMALIZE_BELOW;
+	}
+
+	public double renormalize(long now) {
+		double scale = factorFor(now - epoch);
+		epoch = now;
+		factor = 1.0;
+		return scale;
+	}
+}
@@ -1,14 +1,20 @@
 package com.daytonjwatson.ledger.market;
 
 import com.daytonjwatson.ledger.config.PriceTable;
-import com.daytonjwatson.ledger.util.ItemKeyUtil;
 import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 
+import java.util.BitSet;
+
 public class DepletionListener implements Listener {
+	private static final Material[] MATERIALS = Material.values();
 	private final MarketService marketService;
+	private final BitSet tracked = new BitSet(MATERIALS.length);
+	private final BitSet pending = new BitSet(MATERIALS.length);
+	private final int[] counts = new int[MATERIALS.length];
+	private PriceTable trackedTable;
 
 	public DepletionListener(MarketService marketService) {
 		this.marketService = marketService;
@@ -20,15 +26,44 @@ public class DepletionListener implements Listener {
 		if (material == null || material == Material.AIR) {
 			return;
 		}
-		String key = ItemKeyUtil.toKey(material);
-		if (!isTracked(key)) {
+		int index = material.ordinal();
+		if (!isTracked(index)) {
+			return;
+		}
+		counts[index]++;
+		pending.set(index);
+	}
+
+	public void flush() {
+		if (pending.isEmpty()) {
 			return;
 		}
-		marketService.recordMining(key, 1.0);
+		for (int index = pending.nextSetBit(0); index >= 0; index = pending.nextSetBit(index + 1)) {
+			int count = counts[index];
+			counts[index] = 0;
+			if (count > 0) {
+				marketService.recordMining(MATERIALS[index], count);
+			}
+		}
+		pending.clear();
 	}
 
-	private boolean isTracked(String key) {
-		PriceTable.PriceEntry entry = marketService.getPriceTable().getEntry(key);
-		return entry != null && !entry.isUnsellable();
+	private boolean isTracked(int index) {
+		PriceTable priceTable = marketService.getPriceTable();
+		if (priceTable != trackedTable) {
+			rebuildTracked(priceTable);
+		}
+		return tracked.get(index);
+	}
+
+	private void rebuildTracked(PriceTable priceTable) {
+		tracked.clear();
+		for (Material material : priceTable.getPricedMaterials()) {
+			PriceTable.PriceEntry entry = priceTable.getEntry(material);
+			if (entry != null && !entry.isUnsellable()) {
+				tracked.set(material.ordinal());
+			}
+		}
+		trackedTable = priceTable;
 	}
 }
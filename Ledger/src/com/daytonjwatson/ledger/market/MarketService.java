@@ -4,36 +4,36 @@ import com.daytonjwatson.ledger.config.ConfigManager;
 import com.daytonjwatson.ledger.config.PriceTable;
 import com.daytonjwatson.ledger.farming.SoilFatigueService;
 import com.daytonjwatson.ledger.tools.SilkTouchMarkService;
+import com.daytonjwatson.ledger.upgrades.EffectiveModifiers;
+import com.daytonjwatson.ledger.upgrades.SpecializationDomain;
 import com.daytonjwatson.ledger.upgrades.UpgradeService;
 import com.daytonjwatson.ledger.util.ItemKeyUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.Recipe;
-import org.bukkit.inventory.ShapedRecipe;
-import org.bukkit.inventory.ShapelessRecipe;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 public class MarketService {
 	private final ConfigManager configManager;
 	private final MarketState marketState;
 	private PriceTable priceTable;
+	private RecipeIndex recipeIndex;
 	private final UpgradeService upgradeService;
 	private final SilkTouchMarkService silkTouchMarkService;
 	private final ScarcityWindowService scarcityWindowService;
 	private final SoilFatigueService soilFatigueService;
-	private final Map<String, Double> priceCache = new HashMap<>();
+	private final PriceBoard priceBoard;
 	private final Set<String> missingKeys = new HashSet<>();
-	private long marketVersion = 0;
-	private long priceCacheVersion = -1;
+	private long priceBoardRefreshMs;
 
 	public MarketService(ConfigManager configManager, MarketState marketState, UpgradeService upgradeService,
 						 SilkTouchMarkService silkTouchMarkService, ScarcityWindowService scarcityWindowService,
@@ -45,26 +45,48 @@ public class MarketService {
 		this.scarcityWindowService = scarcityWindowService;
 		this.soilFatigueService = soilFatigueService;
 		this.priceTable = new PriceTable(configManager.getPrices(), configManager.getOverrides());
+		this.recipeIndex = RecipeIndex.build(priceTable);
+		this.priceBoard = new PriceBoard((material, ingredientPrices) -> computeMarketPrice(material, 0.0, ingredientPrices));
+		priceBoard.rebuild(priceTable.getPricedMaterials(), System.currentTimeMillis());
+		this.priceBoardRefreshMs = readPriceBoardRefreshMs();
 	}
 
 	public double getSellPrice(ItemStack item) {
 		if (item == null || item.getType() == Material.AIR) {
 			return 0.0;
 		}
-		double base = getSellPrice(ItemKeyUtil.toKey(item.getType()));
+		double base = getSellPrice(item.getType());
 		if (base <= 0.0) {
 			return 0.0;
 		}
-		double price = base * silkTouchMarkService.getSellMultiplier(item);
-		return applyFatigueMultiplier(item, price);
+		return applyItemModifiers(item, base);
+	}
+
+	double applyItemModifiers(ItemStack item, double base) {
+		return applyFatigueMultiplier(item, base * silkTouchMarkService.getSellMultiplier(item));
+	}
+
+	public double getSellPrice(Material material) {
+		if (material == null || material == Material.AIR) {
+			return 0.0;
+		}
+		return getSellPrice(ItemKeyUtil.toKey(material), material);
 	}
 
 	public double getSellPrice(String key) {
+		Material material = ItemKeyUtil.toMaterial(key);
+		if (material != null) {
+			return getSellPrice(material);
+		}
 		String normalized = ItemKeyUtil.normalizeKey(key);
 		if (normalized == null) {
 			return 0.0;
 		}
-		PriceTable.PriceEntry entry = priceTable.getEntry(normalized);
+		return getSellPrice(normalized, null);
+	}
+
+	private double getSellPrice(String normalized, Material material) {
+		PriceTable.PriceEntry entry = material != null ? priceTable.getEntry(material) : priceTable.getEntry(normalized);
 		if (entry == null) {
 			logMissingPrice(normalized);
 			return 0.0;
@@ -72,22 +94,34 @@ public class MarketService {
 		if (entry.isUnsellable() || entry.getBase() <= 0.0) {
 			return 0.0;
 		}
-		if (priceCacheVersion != marketVersion) {
-			priceCache.clear();
-			priceCacheVersion = marketVersion;
+		if (material != null) {
+			return priceBoard.get(material);
 		}
-		return priceCache.computeIfAbsent(normalized, ignored -> computePrice(entry, normalized));
+		MarketState.ItemState state = marketState.getOrCreateItem(normalized);
+		return computePrice(entry, normalized, null, state.getSoldAccumulator(), state.getMinedTotal(), this::getSellPrice);
+	}
+
+	double getBoardPrice(Material material) {
+		return priceBoard.get(material);
+	}
+
+	public void tickPrices(long now) {
+		priceBoard.refresh(now, priceBoardRefreshMs);
+	}
+
+	private long readPriceBoardRefreshMs() {
+		return (long) (configManager.getConfig().getDouble("market.priceBoardRefreshSeconds", 5.0) * 1000L);
 	}
 
 	public double sell(ItemStack item, int quantity) {
 		if (item == null || item.getType() == Material.AIR || quantity <= 0) {
 			return 0.0;
 		}
-		double price = getSellPrice(ItemKeyUtil.toKey(item.getType()));
+		double price = getSellPrice(item.getType());
 		if (price <= 0.0) {
 			return 0.0;
 		}
-		applySale(ItemKeyUtil.toKey(item.getType()), quantity);
+		applySale(item.getType(), quantity);
 		return price * quantity;
 	}
 
@@ -111,17 +145,19 @@ public class MarketService {
 		if (base <= 0.0) {
 			return 0.0;
 		}
-		UUID uuid = player.getUniqueId();
-		int barterLevel = upgradeService.getLevel(uuid, "barter");
-		String specialization = upgradeService.getSpecializationChoice(uuid);
-		int specializationLevel = getSpecializationLevel(uuid, specialization);
+		return applyPlayerModifiers(player, item, base, distinctTypes, applyLogistics);
+	}
+
+	private double applyPlayerModifiers(Player player, ItemStack item, double base, int distinctTypes, boolean applyLogistics) {
+		EffectiveModifiers modifiers = upgradeService.getModifiers(player.getUniqueId());
 		double windowMultiplier = scarcityWindowService.getWindowMultiplier(player, ItemKeyUtil.toKey(item.getType()), ScarcityWindowService.WindowContext.MARKET);
 		double price = base * windowMultiplier;
-		price *= upgradeService.getBarterMultiplier(barterLevel);
-		price *= getSpecializationMultiplier(specializationLevel, specialization, item);
+		price *= modifiers.getBarterMultiplier();
+		if (modifiers.getSpecializationLevel() > 0) {
+			price *= modifiers.getSpecializationMultiplier(getDomain(item.getType()));
+		}
 		if (applyLogistics) {
-			int logisticsLevel = upgradeService.getLevel(uuid, "logistics");
-			price *= upgradeService.getLogisticsMultiplier(logisticsLevel, distinctTypes);
+			price *= modifiers.getLogisticsMultiplier(distinctTypes);
 		}
 		double clamped = clamp(price, base * windowMultiplier * 0.2, base * windowMultiplier * 5.0);
 		return applyFatigueMultiplier(item, clamped);
@@ -139,193 +175,190 @@ public class MarketService {
 		if (price <= 0.0) {
 			return 0.0;
 		}
-		applySale(ItemKeyUtil.toKey(item.getType()), quantity);
+		applySale(item.getType(), quantity);
 		return price * quantity;
 	}
 
-	public long getProjectedSellValueAfterMarketChange(List<ItemStack> items, Map<Material, Integer> quantities) {
-		if (items == null || items.isEmpty() || quantities == null || quantities.isEmpty()) {
+	public long getProjectedSellValueAfterMarketChange(List<ItemStack> items) {
+		if (items == null || items.isEmpty()) {
 			return 0L;
 		}
-		MarketSnapshot snapshot = snapshotMarketState(quantities.keySet());
-		try {
-			long total = 0L;
-			for (ItemStack item : items) {
-				if (item == null || item.getType() == Material.AIR) {
-					continue;
-				}
-				double price = getSellPrice(item);
-				if (price <= 0.0) {
-					continue;
-				}
-				total += Math.round(price * item.getAmount());
-				applySale(ItemKeyUtil.toKey(item.getType()), item.getAmount());
-			}
-			return total;
-		} finally {
-			restoreMarketState(snapshot);
-		}
+		return simulate().sellBasket(items);
 	}
 
-	public void applySale(String key, int quantity) {
-		String normalized = ItemKeyUtil.normalizeKey(key);
-		if (normalized == null) {
-			return;
+	public SaleBatch applySales(Player player, List<ItemStack> basket, int distinctTypes) {
+		boolean[] sold = new boolean[basket == null ? 0 : basket.size()];
+		if (basket == null || basket.isEmpty()) {
+			return new SaleBatch(0L, 0, sold);
 		}
-		MarketState.ItemState state = marketState.getOrCreateItem(normalized);
-		decay(state);
-		state.setSoldAccumulator(state.getSoldAccumulator() + quantity);
-		state.setLastUpdate(System.currentTimeMillis());
-		marketVersion++;
-	}
-
-	private MarketSnapshot snapshotMarketState(Set<Material> materials) {
-		Map<String, ItemStateSnapshot> itemSnapshots = new HashMap<>();
-		for (Material material : materials) {
-			if (material == null) {
+		MarketSimulation simulation = simulate();
+		long total = 0L;
+		int soldCount = 0;
+		for (int i = 0; i < basket.size(); i++) {
+			ItemStack item = basket.get(i);
+			if (item == null || item.getType() == Material.AIR || item.getAmount() <= 0) {
 				continue;
 			}
-			String key = ItemKeyUtil.normalizeKey(ItemKeyUtil.toKey(material));
-			if (key == null) {
+			double base = simulation.getPrice(item.getType());
+			if (base <= 0.0) {
 				continue;
 			}
-			MarketState.ItemState state = marketState.getOrCreateItem(key);
-			itemSnapshots.put(key, new ItemStateSnapshot(state.getSoldAccumulator(), state.getLastUpdate(), state.getMinedTotal()));
+			base *= silkTouchMarkService.getSellMultiplier(item);
+			double value = player == null ? applyFatigueMultiplier(item, base)
+				: applyPlayerModifiers(player, item, base, distinctTypes, true);
+			if (value <= 0.0) {
+				continue;
+			}
+			total += Math.round(value * item.getAmount());
+			soldCount += item.getAmount();
+			sold[i] = true;
+			simulation.applySale(item.getType(), item.getAmount());
+		}
+		simulation.forEachSale((material, quantity) -> {
+			applySale(marketState.getOrCreateItem(material), quantity);
+			invalidate(material);
+		});
+		return new SaleBatch(total, soldCount, sold);
+	}
+
+	public record SaleBatch(long total, int soldCount, boolean[] sold) {
+		public boolean isSold(int index) {
+			return index >= 0 && index < sold.length && sold[index];
+		}
+	}
+
+	public MarketSimulation simulate() {
+		return new MarketSimulation(this);
+	}
+
+	double computeMarketPrice(Material material, double extraSold, ToDoubleFunction<Material> ingredientPrices) {
+		PriceTable.PriceEntry entry = priceTable.getEntry(material);
+		if (entry == null || entry.isUnsellable() || entry.getBase() <= 0.0) {
+			return 0.0;
 		}
-		return new MarketSnapshot(itemSnapshots, marketVersion, priceCacheVersion, new HashMap<>(priceCache));
+		return computePrice(entry, ItemKeyUtil.toKey(material), material, marketState.getSoldAccumulator(material) + extraSold,
+			marketState.getMinedTotal(material), ingredientPrices);
 	}
 
-	private void restoreMarketState(MarketSnapshot snapshot) {
-		if (snapshot == null) {
+	public void applySale(String key, int quantity) {
+		Material material = ItemKeyUtil.toMaterial(key);
+		if (material != null) {
+			applySale(material, quantity);
 			return;
 		}
-		for (Map.Entry<String, ItemStateSnapshot> entry : snapshot.itemSnapshots().entrySet()) {
-			MarketState.ItemState state = marketState.getOrCreateItem(entry.getKey());
-			ItemStateSnapshot itemSnapshot = entry.getValue();
-			state.setSoldAccumulator(itemSnapshot.soldAccumulator());
-			state.setLastUpdate(itemSnapshot.lastUpdate());
-			state.setMinedTotal(itemSnapshot.minedTotal());
+		String normalized = ItemKeyUtil.normalizeKey(key);
+		if (normalized == null) {
+			return;
 		}
-		marketVersion = snapshot.marketVersion();
-		priceCacheVersion = snapshot.priceCacheVersion();
-		priceCache.clear();
-		priceCache.putAll(snapshot.priceCache());
+		applySale(marketState.getOrCreateItem(normalized), quantity);
 	}
 
-	private record MarketSnapshot(Map<String, ItemStateSnapshot> itemSnapshots, long marketVersion,
-								  long priceCacheVersion, Map<String, Double> priceCache) {
+	public void applySale(Material material, int quantity) {
+		if (material == null || material == Material.AIR) {
+			return;
+		}
+		applySale(marketState.getOrCreateItem(material), quantity);
+		invalidate(material);
 	}
 
-	private record ItemStateSnapshot(double soldAccumulator, long lastUpdate, double minedTotal) {
+	private void applySale(MarketState.ItemState state, double quantity) {
+		state.setSoldAccumulator(state.getSoldAccumulator() + quantity);
 	}
 
 	public void recordMining(String key, double quantity) {
+		Material material = ItemKeyUtil.toMaterial(key);
+		if (material != null) {
+			recordMining(material, quantity);
+			return;
+		}
 		String normalized = ItemKeyUtil.normalizeKey(key);
 		if (normalized == null || quantity <= 0.0) {
 			return;
 		}
 		MarketState.ItemState state = marketState.getOrCreateItem(normalized);
 		state.setMinedTotal(state.getMinedTotal() + quantity);
-		marketVersion++;
 	}
 
-	private double computePrice(PriceTable.PriceEntry entry, String key) {
-		MarketState.ItemState state = marketState.getOrCreateItem(key);
-		decay(state);
-		double supplyFactor = 1.0 / Math.pow(1.0 + (state.getSoldAccumulator() / entry.getCap()), entry.getSigma());
-		double scarcityFactor = getScarcityFactor(entry, key, state);
+	public void recordMining(Material material, double quantity) {
+		if (material == null || material == Material.AIR || quantity <= 0.0) {
+			return;
+		}
+		MarketState.ItemState state = marketState.getOrCreateItem(material);
+		state.setMinedTotal(state.getMinedTotal() + quantity);
+		invalidate(material);
+	}
+
+	private void invalidate(Material material) {
+		forEachAffected(material, priceBoard::markDirty);
+	}
+
+	void forEachAffected(Material material, Consumer<Material> consumer) {
+		Set<Material> visited = EnumSet.noneOf(Material.class);
+		ArrayDeque<Material> pending = new ArrayDeque<>();
+		pending.add(material);
+		while (!pending.isEmpty()) {
+			Material current = pending.poll();
+			if (!visited.add(current)) {
+				continue;
+			}
+			consumer.accept(current);
+			pending.addAll(recipeIndex.getDependents(current));
+		}
+	}
+
+	public PriceBoard.Stats getPriceBoardStats() {
+		return priceBoard.getStats();
+	}
+
+	private double computePrice(PriceTable.PriceEntry entry, String key, Material material, double sold, double mined,
+								ToDoubleFunction<Material> ingredientPrices) {
+		double supplyFactor = 1.0 / Math.pow(1.0 + (sold / entry.getCap()), entry.getSigma());
+		double scarcityFactor = getScarcityFactor(entry, key, mined);
 		double minFactor = entry.getMinFactor();
 		double maxFactor = entry.getMaxFactor();
 		double raw = entry.getBase() * supplyFactor * scarcityFactor;
 		double clamped = clamp(raw, entry.getBase() * minFactor, entry.getBase() * maxFactor * scarcityFactor);
-		double adjusted = applyAntiArbitrage(entry, key, clamped);
+		double adjusted = applyAntiArbitrage(entry, material, clamped, ingredientPrices);
 		return Math.max(0.0, adjusted);
 	}
 
-	private double applyAntiArbitrage(PriceTable.PriceEntry entry, String key, double price) {
-		String tag = entry.getTag() == null ? "" : entry.getTag().toUpperCase(Locale.ROOT);
-		if (!tag.equals(PriceBandTag.UTILITY_INFRA.name()) && !tag.equals(PriceBandTag.REDSTONE_INFRA.name())) {
-			return price;
-		}
-		Material material = Material.matchMaterial(key);
-		if (material == null) {
+	private double applyAntiArbitrage(PriceTable.PriceEntry entry, Material material, double price,
+									  ToDoubleFunction<Material> ingredientPrices) {
+		if (material == null || !RecipeIndex.usesMaterialValue(entry)) {
 			return price;
 		}
-		double materialValue = computeMaterialValue(material, key);
+		double materialValue = computeMaterialValue(material, ingredientPrices);
 		if (materialValue <= 0.0) {
 			return price;
 		}
 		return Math.min(price, materialValue * 0.85);
 	}
 
-	private double computeMaterialValue(Material material, String key) {
-		for (Recipe recipe : Bukkit.getRecipesFor(new ItemStack(material))) {
-			if (recipe instanceof ShapedRecipe shaped) {
-				double value = computeShapedValue(shaped, key);
-				if (value > 0.0) {
-					return value;
-				}
-			}
-			if (recipe instanceof ShapelessRecipe shapeless) {
-				double value = computeShapelessValue(shapeless, key);
-				if (value > 0.0) {
-					return value;
-				}
+	private double computeMaterialValue(Material material, ToDoubleFunction<Material> ingredientPrices) {
+		for (RecipeIndex.IngredientVector vector : recipeIndex.getRecipes(material)) {
+			double value = computeVectorValue(vector, ingredientPrices);
+			if (value > 0.0) {
+				return value;
 			}
 		}
 		return 0.0;
 	}
 
-	private double computeShapedValue(ShapedRecipe shaped, String key) {
-		Map<Character, Integer> counts = new HashMap<>();
-		for (String row : shaped.getShape()) {
-			for (char symbol : row.toCharArray()) {
-				if (symbol == ' ') {
-					continue;
-				}
-				counts.put(symbol, counts.getOrDefault(symbol, 0) + 1);
-			}
-		}
+	private double computeVectorValue(RecipeIndex.IngredientVector vector, ToDoubleFunction<Material> ingredientPrices) {
+		Material[] materials = vector.materials();
+		double[] quantities = vector.quantities();
 		double total = 0.0;
-		for (Map.Entry<Character, ItemStack> entry : shaped.getIngredientMap().entrySet()) {
-			ItemStack ingredient = entry.getValue();
-			if (ingredient == null || ingredient.getType() == Material.AIR) {
-				continue;
-			}
-			String ingredientKey = ItemKeyUtil.toKey(ingredient.getType());
-			if (ingredientKey.equalsIgnoreCase(key)) {
-				return 0.0;
-			}
-			int count = counts.getOrDefault(entry.getKey(), 0);
-			double ingredientPrice = getSellPrice(ingredientKey);
-			if (ingredientPrice <= 0.0 || count <= 0) {
-				return 0.0;
-			}
-			total += ingredientPrice * ingredient.getAmount() * count;
-		}
-		return total;
-	}
-
-	private double computeShapelessValue(ShapelessRecipe shapeless, String key) {
-		double total = 0.0;
-		for (ItemStack ingredient : shapeless.getIngredientList()) {
-			if (ingredient == null || ingredient.getType() == Material.AIR) {
-				continue;
-			}
-			String ingredientKey = ItemKeyUtil.toKey(ingredient.getType());
-			if (ingredientKey.equalsIgnoreCase(key)) {
-				return 0.0;
-			}
-			double ingredientPrice = getSellPrice(ingredientKey);
+		for (int i = 0; i < materials.length; i++) {
+			double ingredientPrice = ingredientPrices.applyAsDouble(materials[i]);
 			if (ingredientPrice <= 0.0) {
 				return 0.0;
 			}
-			total += ingredientPrice * ingredient.getAmount();
+			total += ingredientPrice * quantities[i];
 		}
 		return total;
 	}
 
-	private double getScarcityFactor(PriceTable.PriceEntry entry, String key, MarketState.ItemState state) {
+	private double getScarcityFactor(PriceTable.PriceEntry entry, String key, double mined) {
 		double baseline = entry.getBaseline();
 		double rho = entry.getRho();
 		if (baseline <= 0.0) {
@@ -334,61 +367,19 @@ public class MarketService {
 		if (rho <= 0.0) {
 			rho = configManager.getConfig().getDouble("market.scarcityRho", 0.25);
 		}
-		double depletionRatio = clamp(state.getMinedTotal() / baseline, 0.0, 1.0);
+		double depletionRatio = clamp(mined / baseline, 0.0, 1.0);
 		return 1.0 + rho * depletionRatio;
 	}
 
-	private void decay(MarketState.ItemState state) {
-		long now = System.currentTimeMillis();
-		double hours = Math.min(168.0, Math.max(0.0, (now - state.getLastUpdate()) / 3600000.0));
-		if (hours <= 0.0) {
-			return;
-		}
-		double halfLife = configManager.getConfig().getDouble("market.halfLifeHours", 72.0);
-		double lambda = Math.log(2) / halfLife;
-		state.setSoldAccumulator(state.getSoldAccumulator() * Math.exp(-lambda * hours));
-		state.setLastUpdate(now);
-	}
-
 	private double clamp(double value, double min, double max) {
 		return Math.min(max, Math.max(min, value));
 	}
 
-	private int getSpecializationLevel(UUID uuid, String specialization) {
-		if (specialization == null) {
-			return 0;
-		}
-		return switch (specialization.toUpperCase(Locale.ROOT)) {
-			case "MINER" -> upgradeService.getLevel(uuid, "spec_miner");
-			case "FARMER" -> upgradeService.getLevel(uuid, "spec_farmer");
-			case "HUNTER" -> upgradeService.getLevel(uuid, "spec_hunter");
-			default -> 0;
-		};
-	}
-
-	private double getSpecializationMultiplier(int specializationLevel, String specialization, ItemStack item) {
-		if (specializationLevel <= 0 || specialization == null || item == null) {
-			return 1.0;
-		}
-		SpecializationDomain itemDomain = getDomain(item.getType());
-		if (itemDomain == SpecializationDomain.NONE) {
-			return 1.0;
-		}
-		SpecializationDomain playerDomain = SpecializationDomain.fromChoice(specialization);
-		if (playerDomain == SpecializationDomain.NONE) {
-			return 1.0;
-		}
-		if (playerDomain == itemDomain) {
-			return 1.0 + (0.03 * specializationLevel);
-		}
-		return 1.0 - (0.015 * specializationLevel);
-	}
-
 	private double getRefinedBasePrice(ItemStack item) {
 		if (item == null || item.getType() == Material.AIR) {
 			return 0.0;
 		}
-		double base = getSellPrice(ItemKeyUtil.toKey(item.getType()));
+		double base = getSellPrice(item.getType());
 		if (base <= 0.0) {
 			return 0.0;
 		}
@@ -425,25 +416,6 @@ public class MarketService {
 		};
 	}
 
-	private enum SpecializationDomain {
-		MINER,
-		FARMER,
-		HUNTER,
-		NONE;
-
-		static SpecializationDomain fromChoice(String choice) {
-			if (choice == null) {
-				return NONE;
-			}
-			return switch (choice.toUpperCase(Locale.ROOT)) {
-				case "MINER" -> MINER;
-				case "FARMER" -> FARMER;
-				case "HUNTER" -> HUNTER;
-				default -> NONE;
-			};
-		}
-	}
-
 	private double applyFatigueMultiplier(ItemStack item, double price) {
 		if (soilFatigueService == null) {
 			return price;
@@ -459,10 +431,11 @@ public class MarketService {
 	}
 
 	public void reloadPrices() {
-		priceCache.clear();
-		priceCacheVersion = -1;
 		missingKeys.clear();
 		priceTable = new PriceTable(configManager.getPrices(), configManager.getOverrides());
+		recipeIndex = RecipeIndex.build(priceTable);
+		priceBoard.rebuild(priceTable.getPricedMaterials(), System.currentTimeMillis());
+		priceBoardRefreshMs = readPriceBoardRefreshMs();
 	}
 
 	public void validateCoverage() {
@@ -473,8 +446,7 @@ public class MarketService {
 				continue;
 			}
 			total++;
-			String key = ItemKeyUtil.toKey(material);
-			if (priceTable.getEntry(key) != null) {
+			if (priceTable.getEntry(material) != null) {
 				covered++;
 			}
 		}
@@ -0,0 +1,88 @@
+package com.daytonjwatson.ledger.market;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+public class MarketSimulation {
+	private final MarketService marketService;
+	private final Map<Material, Double> extraSold = new EnumMap<>(Material.class);
+	private final Map<Material, Double> prices = new EnumMap<>(Material.class);
+	private final Set<Material> affected = EnumSet.noneOf(Material.class);
+
+	MarketSimulation(MarketService marketService) {
+		this.marketService = marketService;
+	}
+
+	public double getPrice(Material material) {
+		if (material == null || material == Material.AIR) {
+			return 0.0;
+		}
+		if (!affected.contains(material)) {
+			return marketService.getBoardPrice(material);
+		}
+		Double cached = prices.get(material);
+		if (cached != null) {
+			return cached;
+		}
+		double price = marketService.computeMarketPrice(material, extraSold.getOrDefault(material, 0.0), this::getPrice);
+		prices.put(material, price);
+		return price;
+	}
+
+	public double getSellPrice(ItemStack item) {
+		if (item == null || item.getType() == Material.AIR) {
+			return 0.0;
+		}
+		double base = getPrice(item.getType());
+		if (base <= 0.0) {
+			return 0.0;
+		}
+		return marketService.applyItemModifiers(item, base);
+	}
+
+	public void applySale(Material material, int quantity) {
+		if (material == null || material == Material.AIR || quantity <= 0) {
+			return;
+		}
+		extraSold.merge(material, (double) quantity, Double::sum);
+		marketService.forEachAffected(material, dependent -> {
+			affected.add(dependent);
+			prices.remove(dependent);
+		});
+	}
+
+	void forEachSale(BiConsumer<Material, Double> consumer) {
+		extraSold.forEach(consumer);
+	}
+
+	public double getPriceAfterSelling(Material material, int quantity) {
+		applySale(material, quantity);
+		return getPrice(material);
+	}
+
+	public long sellBasket(List<ItemStack> items) {
+		long total = 0L;
+		if (items == null) {
+			return total;
+		}
+		for (ItemStack item : items) {
+			if (item == null || item.getType() == Material.AIR) {
+				continue;
+			}
+			double price = getSellPrice(item);
+			if (price <= 0.0) {
+				continue;
+			}
+			total += Math.round(price * item.getAmount());
+			applySale(item.getType(), item.getAmount());
+		}
+		return total;
+	}
+}
@@ -1,51 +1,220 @@
 package com.daytonjwatson.ledger.market;
 
+import com.daytonjwatson.ledger.util.ItemKeyUtil;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 public class MarketState {
+	private static final String ENTITY_PREFIX = "ENTITY:";
+	private static final Material[] MATERIALS = Material.values();
+	private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+	private final DecayClock itemClock;
+	private final DecayClock mobClock;
+	private final double[] soldAccumulator = new double[MATERIALS.length];
+	private final double[] minedTotal = new double[MATERIALS.length];
+	private final BitSet itemsPresent = new BitSet(MATERIALS.length);
+	private BitSet itemsChanged = new BitSet(MATERIALS.length);
+	private final ItemState[] itemViews = new ItemState[MATERIALS.length];
+	private final double[] killAccumulator = new double[ENTITY_TYPES.length];
+	private final BitSet mobsPresent = new BitSet(ENTITY_TYPES.length);
+	private BitSet mobsChanged = new BitSet(ENTITY_TYPES.length);
+	private final MobState[] mobViews = new MobState[ENTITY_TYPES.length];
 	private final Map<String, ItemState> items = new HashMap<>();
 	private final Map<String, MobState> mobs = new HashMap<>();
 
-	public Map<String, ItemState> getItems() {
-		return items;
+	public MarketState(double itemHalfLifeHours, double mobHalfLifeHours) {
+		long now = System.currentTimeMillis();
+		this.itemClock = new DecayClock(itemHalfLifeHours, now);
+		this.mobClock = new DecayClock(mobHalfLifeHours, now);
+	}
+
+	public DecayClock getItemClock() {
+		return itemClock;
+	}
+
+	public DecayClock getMobClock() {
+		return mobClock;
+	}
+
+	public void tickDecay(long now) {
+		itemClock.tick(now);
+		if (itemClock.needsRenormalize()) {
+			double scale = itemClock.renormalize(now);
+			for (int index = itemsPresent.nextSetBit(0); index >= 0; index = itemsPresent.nextSetBit(index + 1)) {
+				soldAccumulator[index] *= scale;
+			}
+			items.values().forEach(state -> state.rescale(scale));
+		}
+		mobClock.tick(now);
+		if (mobClock.needsRenormalize()) {
+			double scale = mobClock.renormalize(now);
+			for (int index = mobsPresent.nextSetBit(0); index >= 0; index = mobsPresent.nextSetBit(index + 1)) {
+				killAccumulator[index] *= scale;
+			}
+			mobs.values().forEach(state -> state.rescale(scale));
+		}
+	}
+
+	public double getSoldAccumulator(Material material) {
+		return itemClock.fromStored(soldAccumulator[material.ordinal()]);
+	}
+
+	public double getMinedTotal(Material material) {
+		return minedTotal[material.ordinal()];
+	}
+
+	public double getKillAccumulator(EntityType type) {
+		return mobClock.fromStored(killAccumulator[type.ordinal()]);
 	}
 
-	public Map<String, MobState> getMobs() {
-		return mobs;
+	public ItemState getOrCreateItem(Material material) {
+		int index = material.ordinal();
+		itemsPresent.set(index);
+		ItemState view = itemViews[index];
+		if (view == null) {
+			view = new DenseItemState(index);
+			itemViews[index] = view;
+		}
+		return view;
 	}
 
 	public ItemState getOrCreateItem(String key) {
-		String normalized = com.daytonjwatson.ledger.util.ItemKeyUtil.normalizeKey(key);
+		Material material = ItemKeyUtil.toMaterial(key);
+		if (material != null) {
+			return getOrCreateItem(material);
+		}
+		String normalized = ItemKeyUtil.normalizeKey(key);
 		if (normalized == null) {
-			normalized = key == null ? "" : key.toUpperCase();
+			normalized = key == null ? "" : key.toUpperCase(Locale.ROOT);
 		}
-		return items.computeIfAbsent(normalized, ignored -> new ItemState());
+		return items.computeIfAbsent(normalized, ignored -> new ItemState(itemClock));
+	}
+
+	public MobState getOrCreateMob(EntityType type) {
+		int index = type.ordinal();
+		mobsPresent.set(index);
+		MobState view = mobViews[index];
+		if (view == null) {
+			view = new DenseMobState(index);
+			mobViews[index] = view;
+		}
+		return view;
 	}
 
 	public MobState getOrCreateMob(String key) {
-		return mobs.computeIfAbsent(key.toUpperCase(), ignored -> new MobState());
+		String normalized = key.toUpperCase(Locale.ROOT);
+		EntityType type = toEntityType(normalized);
+		if (type != null) {
+			return getOrCreateMob(type);
+		}
+		return mobs.computeIfAbsent(normalized, ignored -> new MobState(mobClock));
+	}
+
+	public void forEachItem(BiConsumer<String, ItemState> consumer) {
+		for (int index = itemsPresent.nextSetBit(0); index >= 0; index = itemsPresent.nextSetBit(index + 1)) {
+			consumer.accept(ItemKeyUtil.toKey(MATERIALS[index]), getOrCreateItem(MATERIALS[index]));
+		}
+		items.forEach(consumer);
+	}
+
+	public void forEachMob(BiConsumer<String, MobState> consumer) {
+		for (int index = mobsPresent.nextSetBit(0); index >= 0; index = mobsPresent.nextSetBit(index + 1)) {
+			consumer.accept(ENTITY_PREFIX + ENTITY_TYPES[index].name(), getOrCreateMob(ENTITY_TYPES[index]));
+		}
+		mobs.forEach(consumer);
+	}
+
+	public Snapshot snapshot() {
+		Map<String, ItemValues> itemCopies = new HashMap<>();
+		items.forEach((key, state) -> itemCopies.put(key, new ItemValues(state.getSoldAccumulator(), state.getMinedTotal())));
+		Map<String, MobValues> mobCopies = new HashMap<>();
+		mobs.forEach((key, state) -> mobCopies.put(key, new MobValues(state.getKillAccumulator())));
+		BitSet changedItems = itemsChanged;
+		BitSet changedMobs = mobsChanged;
+		itemsChanged = new BitSet(MATERIALS.length);
+		mobsChanged = new BitSet(ENTITY_TYPES.length);
+		return new Snapshot(System.currentTimeMillis(), itemClock.getEpoch(), itemClock.getFactor(), soldAccumulator.clone(),
+			minedTotal.clone(), (BitSet) itemsPresent.clone(), changedItems, mobClock.getEpoch(), mobClock.getFactor(),
+			killAccumulator.clone(), (BitSet) mobsPresent.clone(), changedMobs, itemCopies, mobCopies);
+	}
+
+	private static EntityType toEntityType(String normalizedKey) {
+		if (!normalizedKey.startsWith(ENTITY_PREFIX)) {
+			return null;
+		}
+		try {
+			return EntityType.valueOf(normalizedKey.substring(ENTITY_PREFIX.length()));
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	public record ItemValues(double soldAccumulator, double minedTotal) {
+	}
+
+	public record MobValues(double killAccumulator) {
+	}
+
+	public record Snapshot(long capturedAt, long itemEpoch, double itemFactor, double[] soldAccumulator, double[] minedTotal,
+						   BitSet itemsPresent, BitSet itemsChanged, long mobEpoch, double mobFactor, double[] killAccumulator,
+						   BitSet mobsPresent, BitSet mobsChanged, Map<String, ItemValues> items, Map<String, MobValues> mobs) {
+		public Set<String> changedItemKeys() {
+			Set<String> keys = new HashSet<>(items.keySet());
+			for (int index = itemsChanged.nextSetBit(0); index >= 0; index = itemsChanged.nextSetBit(index + 1)) {
+				keys.add(ItemKeyUtil.toKey(MATERIALS[index]));
+			}
+			return keys;
+		}
+
+		public Set<String> changedMobKeys() {
+			Set<String> keys = new HashSet<>(mobs.keySet());
+			for (int index = mobsChanged.nextSetBit(0); index >= 0; index = mobsChanged.nextSetBit(index + 1)) {
+				keys.add(ENTITY_PREFIX + ENTITY_TYPES[index].name());
+			}
+			return keys;
+		}
+
+		public void forEachItem(BiConsumer<String, ItemValues> consumer) {
+			for (int index = itemsPresent.nextSetBit(0); index >= 0; index = itemsPresent.nextSetBit(index + 1)) {
+				consumer.accept(ItemKeyUtil.toKey(MATERIALS[index]),
+					new ItemValues(soldAccumulator[index] * itemFactor, minedTotal[index]));
+			}
+			items.forEach(consumer);
+		}
+
+		public void forEachMob(BiConsumer<String, MobValues> consumer) {
+			for (int index = mobsPresent.nextSetBit(0); index >= 0; index = mobsPresent.nextSetBit(index + 1)) {
+				consumer.accept(ENTITY_PREFIX + ENTITY_TYPES[index].name(),
+					new MobValues(killAccumulator[index] * mobFactor));
+			}
+			mobs.forEach(consumer);
+		}
 	}
 
 	public static class ItemState {
+		private final DecayClock clock;
 		private double soldAccumulator;
-		private long lastUpdate;
 		private double minedTotal;
 
-		public double getSoldAccumulator() {
-			return soldAccumulator;
-		}
-
-		public void setSoldAccumulator(double soldAccumulator) {
-			this.soldAccumulator = soldAccumulator;
+		private ItemState(DecayClock clock) {
+			this.clock = clock;
 		}
 
-		public long getLastUpdate() {
-			return lastUpdate;
+		public double getSoldAccumulator() {
+			return clock.fromStored(soldAccumulator);
 		}
 
-		public void setLastUpdate(long lastUpdate) {
-			this.lastUpdate = lastUpdate;
+		public void setSoldAccumulator(double soldAccumulator) {
+			this.soldAccumulator = clock.toStored(soldAccumulator);
 		}
 
 		public double getMinedTotal() {
@@ -55,26 +224,81 @@ public class MarketState {
 		public void setMinedTotal(double minedTotal) {
 			this.minedTotal = minedTotal;
 		}
+
+		void rescale(double scale) {
+			soldAccumulator *= scale;
+		}
 	}
 
 	public static class MobState {
+		private final DecayClock clock;
 		private double killAccumulator;
-		private long lastUpdate;
+
+		private MobState(DecayClock clock) {
+			this.clock = clock;
+		}
 
 		public double getKillAccumulator() {
-			return killAccumulator;
+			return clock.fromStored(killAccumulator);
 		}
 
 		public void setKillAccumulator(double killAccumulator) {
-			this.killAccumulator = killAccumulator;
+			this.killAccumulator = clock.toStored(killAccumulator);
 		}
 
-		public long getLastUpdate() {
-			return lastUpdate;
+		void rescale(double scale) {
+			killAccumulator *= scale;
+		}
+	}
+
+	private final class DenseItemState extends ItemState {
+		private final int index;
+
+		private DenseItemState(int index) {
+			super(itemClock);
+			this.index = index;
+		}
+
+		@Override
+		public double getSoldAccumulator() {
+			return itemClock.fromStored(soldAccumulator[index]);
+		}
+
+		@Override
+		public void setSoldAccumulator(double value) {
+			soldAccumulator[index] = itemClock.toStored(value);
+			itemsChanged.set(index);
+		}
+
+		@Override
+		public double getMinedTotal() {
+			return minedTotal[index];
+		}
+
+		@Override
+		public void setMinedTotal(double value) {
+			minedTotal[index] = value;
+			itemsChanged.set(index);
+		}
+	}
+
+	private final class DenseMobState extends MobState {
+		private final int index;
+
+		private DenseMobState(int index) {
+			super(mobClock);
+			this.index = index;
+		}
+
+		@Override
+		public double getKillAccumulator() {
+			return mobClock.fromStored(killAccumulator[index]);
 		}
 
-		public void setLastUpdate(long lastUpdate) {
-			this.lastUpdate = lastUpdate;
+		@Override
+		public void setKillAccumulator(double value) {
+			killAccumulator[index] = mobClock.toStored(value);
+			mobsChanged.set(index);
 		}
 	}
 }
@@ -1,37 +1,99 @@
 package com.daytonjwatson.ledger.market;
 
 import com.daytonjwatson.ledger.config.ConfigManager;
-import com.daytonjwatson.ledger.util.AtomicFileWriter;
+import com.daytonjwatson.ledger.storage.LedgerStore;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import com.daytonjwatson.ledger.util.YamlFiles;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class MarketStorageYaml {
 	private static final int SCHEMA_VERSION = 1;
+	private static final long MAX_DOWNTIME_MS = 168L * 3600000L;
 	private final JavaPlugin plugin;
 	private final MarketState marketState;
 	private final ConfigManager configManager;
-	private final File marketFile;
+	private final PersistenceWriter writer;
+	private final LedgerStore store;
+	private final File legacyFile;
+	private final File exportFile;
 
-	public MarketStorageYaml(JavaPlugin plugin, MarketState marketState, ConfigManager configManager) {
+	public MarketStorageYaml(JavaPlugin plugin, MarketState marketState, ConfigManager configManager, PersistenceWriter writer,
+							 LedgerStore store) {
 		this.plugin = plugin;
+		this.writer = writer;
+		this.store = store;
 		this.marketState = marketState;
 		this.configManager = configManager;
-		this.marketFile = new File(plugin.getDataFolder(), "market.yml");
+		this.legacyFile = new File(plugin.getDataFolder(), "market.yml");
+		this.exportFile = new File(new File(plugin.getDataFolder(), "export"), "market.yml");
 	}
 
 	public void load() {
-		YamlConfiguration yaml = loadWithBackup();
-		if (yaml == null) {
+		LedgerStore.MarketData market = store.loadMarket();
+		if (market != null) {
+			applyStored(market);
 			return;
 		}
+		YamlConfiguration yaml = YamlFiles.loadWithBackup(legacyFile, plugin.getLogger());
+		if (yaml != null) {
+			applyYaml(yaml);
+		}
+	}
+
+	public boolean importYaml() {
+		YamlConfiguration yaml = YamlFiles.load(exportFile, plugin.getLogger());
+		if (yaml == null) {
+			return false;
+		}
+		applyYaml(yaml);
+		save();
+		return true;
+	}
+
+	public CompletableFuture<Void> exportYaml() {
+		return writer.submit(exportFile, toYaml(snapshot()).saveToString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void save() {
+		save(snapshot());
+	}
+
+	public MarketState.Snapshot snapshot() {
+		return marketState.snapshot();
+	}
+
+	public void save(MarketState.Snapshot snapshot) {
+		Map<String, MarketState.ItemValues> items = new HashMap<>();
+		Map<String, MarketState.MobValues> mobs = new HashMap<>();
+		snapshot.forEachItem(items::put);
+		snapshot.forEachMob(mobs::put);
+		LedgerStore.MarketChanges changes = new LedgerStore.MarketChanges(snapshot.itemEpoch(), snapshot.itemFactor(),
+			snapshot.mobEpoch(), snapshot.mobFactor(), snapshot.changedItemKeys(), snapshot.changedMobKeys());
+		store.saveMarket(new LedgerStore.MarketData(snapshot.capturedAt(), items, mobs, changes));
+	}
+
+	private void applyStored(LedgerStore.MarketData market) {
+		long now = System.currentTimeMillis();
+		double itemDowntime = downtimeFactor(marketState.getItemClock(), market.capturedAt(), now);
+		double mobDowntime = downtimeFactor(marketState.getMobClock(), market.capturedAt(), now);
+		market.items().forEach((key, values) -> {
+			MarketState.ItemState state = marketState.getOrCreateItem(key);
+			state.setSoldAccumulator(values.soldAccumulator() * itemDowntime);
+			state.setMinedTotal(values.minedTotal());
+		});
+		market.mobs().forEach((key, values) -> marketState.getOrCreateMob(key).setKillAccumulator(values.killAccumulator() * mobDowntime));
+	}
+
+	private void applyYaml(YamlConfiguration yaml) {
+		long now = System.currentTimeMillis();
 		ConfigurationSection itemsSection = yaml.getConfigurationSection("market.items");
 		if (itemsSection != null) {
 			for (String key : itemsSection.getKeys(false)) {
@@ -40,8 +102,8 @@ public class MarketStorageYaml {
 					continue;
 				}
 				MarketState.ItemState state = marketState.getOrCreateItem(key);
-				state.setSoldAccumulator(entry.getDouble("s", 0.0));
-				state.setLastUpdate(entry.getLong("lastUpdate", System.currentTimeMillis()));
+				double downtime = downtimeFactor(marketState.getItemClock(), entry.getLong("lastUpdate", now), now);
+				state.setSoldAccumulator(entry.getDouble("s", 0.0) * downtime);
 				state.setMinedTotal(entry.getDouble("minedTotal", 0.0));
 			}
 		}
@@ -53,98 +115,33 @@ public class MarketStorageYaml {
 					continue;
 				}
 				MarketState.MobState state = marketState.getOrCreateMob(key);
-				state.setKillAccumulator(entry.getDouble("k", 0.0));
-				state.setLastUpdate(entry.getLong("lastUpdate", System.currentTimeMillis()));
+				double downtime = downtimeFactor(marketState.getMobClock(), entry.getLong("lastUpdate", now), now);
+				state.setKillAccumulator(entry.getDouble("k", 0.0) * downtime);
 			}
 		}
-		applyDowntimeDecay();
 	}
 
-	public void save() {
+	private YamlConfiguration toYaml(MarketState.Snapshot snapshot) {
 		YamlConfiguration yaml = new YamlConfiguration();
 		yaml.set("schema", SCHEMA_VERSION);
-		yaml.set("generatedAt", System.currentTimeMillis());
+		yaml.set("generatedAt", snapshot.capturedAt());
 		ConfigurationSection itemsSection = yaml.createSection("market.items");
-		for (Map.Entry<String, MarketState.ItemState> entry : marketState.getItems().entrySet()) {
-			String normalizedKey = com.daytonjwatson.ledger.util.ItemKeyUtil.normalizeKey(entry.getKey());
-			ConfigurationSection itemSection = itemsSection.createSection(normalizedKey == null ? entry.getKey() : normalizedKey);
-			itemSection.set("s", entry.getValue().getSoldAccumulator());
-			itemSection.set("lastUpdate", entry.getValue().getLastUpdate());
-			itemSection.set("minedTotal", entry.getValue().getMinedTotal());
-		}
+		snapshot.forEachItem((key, values) -> {
+			ConfigurationSection itemSection = itemsSection.createSection(key);
+			itemSection.set("s", values.soldAccumulator());
+			itemSection.set("lastUpdate", snapshot.capturedAt());
+			itemSection.set("minedTotal", values.minedTotal());
+		});
 		ConfigurationSection mobSection = yaml.createSection("mobMarket.mobs");
-		for (Map.Entry<String, MarketState.MobState> entry : marketState.getMobs().entrySet()) {
-			ConfigurationSection mobEntry = mobSection.createSection(entry.getKey());
-			mobEntry.set("k", entry.getValue().getKillAccumulator());
-			mobEntry.set("lastUpdate", entry.getValue().getLastUpdate());
-		}
-		try {
-			AtomicFileWriter.writeAtomically(marketFile, yaml.saveToString().getBytes());
-		} catch (IOException e) {
-			plugin.getLogger().warning("Failed to save market.yml: " + e.getMessage());
-		}
-	}
-
-	private YamlConfiguration loadWithBackup() {
-		File tmp = new File(marketFile.getParentFile(), marketFile.getName() + ".tmp");
-		if (tmp.exists() && !tmp.delete()) {
-			plugin.getLogger().warning("Unable to delete stale market temp file: " + tmp.getName());
-		}
-		YamlConfiguration primary = loadConfig(marketFile);
-		if (primary != null && !primary.getKeys(false).isEmpty()) {
-			return primary;
-		}
-		File backup = new File(marketFile.getParentFile(), marketFile.getName() + ".bak");
-		YamlConfiguration backupConfig = loadConfig(backup);
-		if (backupConfig != null) {
-			return backupConfig;
-		}
-		return primary != null ? primary : new YamlConfiguration();
-	}
-
-	private YamlConfiguration loadConfig(File file) {
-		if (!file.exists()) {
-			return null;
-		}
-		try {
-			String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
-			YamlConfiguration yaml = new YamlConfiguration();
-			yaml.loadFromString(content);
-			return yaml;
-		} catch (IOException | InvalidConfigurationException e) {
-			plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
-			return null;
-		}
+		snapshot.forEachMob((key, values) -> {
+			ConfigurationSection mobEntry = mobSection.createSection(key);
+			mobEntry.set("k", values.killAccumulator());
+			mobEntry.set("lastUpdate", snapshot.capturedAt());
+		});
+		return yaml;
 	}
 
-	private void applyDowntimeDecay() {
-		double halfLife = configManager.getConfig().getDouble("market.halfLifeHours", 72.0);
-		long now = System.currentTimeMillis();
-		for (MarketState.ItemState state : marketState.getItems().values()) {
-			decay(state, halfLife, now);
-		}
-		for (MarketState.MobState state : marketState.getMobs().values()) {
-			decay(state, configManager.getConfig().getDouble("mob.halfLifeHours", 48.0), now);
-		}
-	}
-
-	private void decay(MarketState.ItemState state, double halfLifeHours, long now) {
-		double hours = Math.min(168.0, Math.max(0.0, (now - state.getLastUpdate()) / 3600000.0));
-		if (hours <= 0.0) {
-			return;
-		}
-		double lambda = Math.log(2) / halfLifeHours;
-		state.setSoldAccumulator(state.getSoldAccumulator() * Math.exp(-lambda * hours));
-		state.setLastUpdate(now);
-	}
-
-	private void decay(MarketState.MobState state, double halfLifeHours, long now) {
-		double hours = Math.min(168.0, Math.max(0.0, (now - state.getLastUpdate()) / 3600000.0));
-		if (hours <= 0.0) {
-			return;
-		}
-		double lambda = Math.log(2) / halfLifeHours;
-		state.setKillAccumulator(state.getKillAccumulator() * Math.exp(-lambda * hours));
-		state.setLastUpdate(now);
+	private double downtimeFactor(DecayClock clock, long lastUpdate, long now) {
+		return clock.factorFor(Math.min(MAX_DOWNTIME_MS, now - lastUpdate));
 	}
 }
@@ -0,0 +1,91 @@
+package com.daytonjwatson.ledger.market;
+
+import org.bukkit.Material;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+public class PriceBoard {
+	private static final Material[] MATERIALS = Material.values();
+	private final PriceFunction priceFunction;
+	private final BitSet tracked = new BitSet(MATERIALS.length);
+	private final BitSet dirty = new BitSet(MATERIALS.length);
+	private final LongAdder reads = new LongAdder();
+	private volatile double[] prices = new double[MATERIALS.length];
+	private long recomputes;
+	private long publishes;
+	private long lastFullRefresh;
+
+	public PriceBoard(PriceFunction priceFunction) {
+		this.priceFunction = priceFunction;
+	}
+
+	public double get(Material material) {
+		reads.increment();
+		return prices[material.ordinal()];
+	}
+
+	public void markDirty(Material material) {
+		dirty.set(material.ordinal());
+	}
+
+	public void rebuild(Collection<Material> materials, long now) {
+		tracked.clear();
+		for (Material material : materials) {
+			tracked.set(material.ordinal());
+		}
+		dirty.clear();
+		publish(new double[MATERIALS.length], (BitSet) tracked.clone());
+		lastFullRefresh = now;
+	}
+
+	public void refresh(long now, long fullRefreshMs) {
+		if (now - lastFullRefresh >= fullRefreshMs) {
+			dirty.clear();
+			publish(prices.clone(), (BitSet) tracked.clone());
+			lastFullRefresh = now;
+			return;
+		}
+		if (dirty.isEmpty()) {
+			return;
+		}
+		BitSet pending = (BitSet) dirty.clone();
+		pending.and(tracked);
+		dirty.clear();
+		if (!pending.isEmpty()) {
+			publish(prices.clone(), pending);
+		}
+	}
+
+	public Stats getStats() {
+		return new Stats(reads.sum(), recomputes, publishes, tracked.cardinality());
+	}
+
+	private void publish(double[] next, BitSet pending) {
+		BitSet done = new BitSet(MATERIALS.length);
+		for (int index = pending.nextSetBit(0); index >= 0; index = pending.nextSetBit(index + 1)) {
+			compute(index, next, pending, done);
+		}
+		prices = next;
+		publishes++;
+	}
+
+	private double compute(int index, double[] next, BitSet pending, BitSet done) {
+		if (!pending.get(index) || done.get(index)) {
+			return next[index];
+		}
+		done.set(index);
+		next[index] = priceFunction.compute(MATERIALS[index], material -> compute(material.ordinal(), next, pending, done));
+		recomputes++;
+		return next[index];
+	}
+
+	public interface PriceFunction {
+		double compute(Material material, ToDoubleFunction<Material> ingredientPrices);
+	}
+
+	public record Stats(long reads, long recomputes, long publishes, int tracked) {
+	}
+}
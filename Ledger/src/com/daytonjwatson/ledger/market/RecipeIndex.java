@@ -0,0 +1,134 @@
+package com.daytonjwatson.ledger.market;
+
+import com.daytonjwatson.ledger.config.PriceTable;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RecipeIndex {
+	private final Map<Material, List<IngredientVector>> recipes = new EnumMap<>(Material.class);
+	private final Map<Material, Set<Material>> dependents = new EnumMap<>(Material.class);
+
+	public static RecipeIndex build(PriceTable priceTable) {
+		RecipeIndex index = new RecipeIndex();
+		Iterator<Recipe> iterator = Bukkit.recipeIterator();
+		while (iterator.hasNext()) {
+			Recipe recipe = iterator.next();
+			ItemStack result = recipe == null ? null : recipe.getResult();
+			if (result == null || result.getType() == Material.AIR) {
+				continue;
+			}
+			Material output = result.getType();
+			if (!usesMaterialValue(priceTable.getEntry(output))) {
+				continue;
+			}
+			IngredientVector vector = null;
+			if (recipe instanceof ShapedRecipe shaped) {
+				vector = fromShaped(shaped, output);
+			} else if (recipe instanceof ShapelessRecipe shapeless) {
+				vector = fromShapeless(shapeless, output);
+			}
+			if (vector != null) {
+				index.add(output, vector);
+			}
+		}
+		return index;
+	}
+
+	public static boolean usesMaterialValue(PriceTable.PriceEntry entry) {
+		if (entry == null) {
+			return false;
+		}
+		String tag = entry.getBandTag();
+		return tag.equals(PriceBandTag.UTILITY_INFRA.name()) || tag.equals(PriceBandTag.REDSTONE_INFRA.name());
+	}
+
+	public List<IngredientVector> getRecipes(Material output) {
+		List<IngredientVector> vectors = recipes.get(output);
+		return vectors == null ? List.of() : vectors;
+	}
+
+	public Set<Material> getDependents(Material ingredient) {
+		Set<Material> outputs = dependents.get(ingredient);
+		return outputs == null ? Set.of() : Collections.unmodifiableSet(outputs);
+	}
+
+	private void add(Material output, IngredientVector vector) {
+		recipes.computeIfAbsent(output, ignored -> new ArrayList<>()).add(vector);
+		for (Material ingredient : vector.materials()) {
+			dependents.computeIfAbsent(ingredient, ignored -> EnumSet.noneOf(Material.class)).add(output);
+		}
+	}
+
+	private static IngredientVector fromShaped(ShapedRecipe shaped, Material output) {
+		Map<Character, Integer> counts = new HashMap<>();
+		for (String row : shaped.getShape()) {
+			for (char symbol : row.toCharArray()) {
+				if (symbol == ' ') {
+					continue;
+				}
+				counts.put(symbol, counts.getOrDefault(symbol, 0) + 1);
+			}
+		}
+		Map<Material, Double> quantities = new EnumMap<>(Material.class);
+		for (Map.Entry<Character, ItemStack> entry : shaped.getIngredientMap().entrySet()) {
+			ItemStack ingredient = entry.getValue();
+			if (ingredient == null || ingredient.getType() == Material.AIR) {
+				continue;
+			}
+			if (ingredient.getType() == output) {
+				return null;
+			}
+			int count = counts.getOrDefault(entry.getKey(), 0);
+			if (count <= 0) {
+				return null;
+			}
+			quantities.merge(ingredient.getType(), (double) ingredient.getAmount() * count, Double::sum);
+		}
+		return IngredientVector.of(quantities);
+	}
+
+	private static IngredientVector fromShapeless(ShapelessRecipe shapeless, Material output) {
+		Map<Material, Double> quantities = new EnumMap<>(Material.class);
+		for (ItemStack ingredient : shapeless.getIngredientList()) {
+			if (ingredient == null || ingredient.getType() == Material.AIR) {
+				continue;
+			}
+			if (ingredient.getType() == output) {
+				return null;
+			}
+			quantities.merge(ingredient.getType(), (double) ingredient.getAmount(), Double::sum);
+		}
+		return IngredientVector.of(quantities);
+	}
+
+	public record IngredientVector(Material[] materials, double[] quantities) {
+		private static IngredientVector of(Map<Material, Double> quantities) {
+			if (quantities.isEmpty()) {
+				return null;
+			}
+			Material[] materials = new Material[quantities.size()];
+			double[] amounts = new double[quantities.size()];
+			int i = 0;
+			for (Map.Entry<Material, Double> entry : quantities.entrySet()) {
+				materials[i] = entry.getKey();
+				amounts[i] = entry.getValue();
+				i++;
+			}
+			return new IngredientVector(materials, amounts);
+		}
+	}
+}
@@ -2,7 +2,6 @@ package com.daytonjwatson.ledger.market;
 
 import com.daytonjwatson.ledger.config.PriceTable;
 import com.daytonjwatson.ledger.tools.ToolMetaService;
-import com.daytonjwatson.ledger.util.ItemKeyUtil;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.block.ShulkerBox;
@@ -49,8 +48,7 @@ public class SellValidator {
 				return SellResult.reject("Container Contents");
 			}
 		}
-		String key = ItemKeyUtil.toKey(item.getType());
-		PriceTable.PriceEntry entry = marketService.getPriceTable().getEntry(key);
+		PriceTable.PriceEntry entry = marketService.getPriceTable().getEntry(item.getType());
 		if (entry == null || entry.isUnsellable() || entry.getBase() <= 0.0) {
 			return SellResult.reject("Unsellable");
 		}
@@ -4,7 +4,9 @@ import com.daytonjwatson.ledger.economy.MoneyService;
 import com.daytonjwatson.ledger.market.MarketService;
 import com.daytonjwatson.ledger.market.SellValidator;
 import com.daytonjwatson.ledger.util.ItemKeyUtil;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.bukkit.Material;
@@ -39,8 +41,8 @@ public class SellService {
 			sellableCounts.merge(ItemKeyUtil.toKey(item.getType()), item.getAmount(), Integer::sum);
 		}
 		int distinctTypes = sellableCounts.size();
-		long total = 0;
-		int soldCount = 0;
+		List<ItemStack> basket = new ArrayList<>();
+		List<Integer> basketSlots = new ArrayList<>();
 		for (int i = 0; i < items.length; i++) {
 			ItemStack item = items[i];
 			if (item == null || item.getType() == Material.AIR) {
@@ -49,15 +51,17 @@ public class SellService {
 			if (!sellValidator.validate(item).sellable()) {
 				continue;
 			}
-			double value = marketService.getSellPriceForInventory(player, item, distinctTypes);
-			if (value <= 0.0) {
-				continue;
+			basket.add(item);
+			basketSlots.add(i);
+		}
+		MarketService.SaleBatch batch = marketService.applySales(player, basket, distinctTypes);
+		for (int i = 0; i < basketSlots.size(); i++) {
+			if (batch.isSold(i)) {
+				items[basketSlots.get(i)] = null;
 			}
-			total += Math.round(value * item.getAmount());
-			soldCount += item.getAmount();
-			marketService.applySale(ItemKeyUtil.toKey(item.getType()), item.getAmount());
-			items[i] = null;
 		}
+		long total = batch.total();
+		int soldCount = batch.soldCount();
 		player.getInventory().setContents(items);
 		if (total <= 0) {
 			return SellOutcome.noSellable();
@@ -82,8 +86,8 @@ public class SellService {
 			sellableCounts.merge(ItemKeyUtil.toKey(item.getType()), item.getAmount(), Integer::sum);
 		}
 		int distinctTypes = sellableCounts.size();
-		long total = 0;
-		int soldCount = 0;
+		List<ItemStack> basket = new ArrayList<>();
+		List<Integer> basketSlots = new ArrayList<>();
 		for (int slot : slots) {
 			ItemStack item = inventory.getItem(slot);
 			if (item == null || item.getType() == Material.AIR) {
@@ -92,15 +96,17 @@ public class SellService {
 			if (!sellValidator.validate(item).sellable()) {
 				continue;
 			}
-			double value = marketService.getSellPriceForInventory(player, item, distinctTypes);
-			if (value <= 0.0) {
-				continue;
+			basket.add(item);
+			basketSlots.add(slot);
+		}
+		MarketService.SaleBatch batch = marketService.applySales(player, basket, distinctTypes);
+		for (int i = 0; i < basketSlots.size(); i++) {
+			if (batch.isSold(i)) {
+				inventory.setItem(basketSlots.get(i), null);
 			}
-			total += Math.round(value * item.getAmount());
-			soldCount += item.getAmount();
-			marketService.applySale(ItemKeyUtil.toKey(item.getType()), item.getAmount());
-			inventory.setItem(slot, null);
 		}
+		long total = batch.total();
+		int soldCount = batch.soldCount();
 		if (total <= 0) {
 			return SellOutcome.noSellable();
 		}
@@ -121,7 +127,7 @@ public class SellService {
 			return SellOutcome.noSellable();
 		}
 		long total = Math.round(value * item.getAmount());
-		marketService.applySale(ItemKeyUtil.toKey(item.getType()), item.getAmount());
+		marketService.applySale(item.getType(), item.getAmount());
 		player.getInventory().setItemInMainHand(new ItemStack(Material.AIR));
 		moneyService.addCarried(player, total);
 		return SellOutcome.sold(total, item.getAmount());
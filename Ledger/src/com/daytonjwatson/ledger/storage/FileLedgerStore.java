@@ -0,0 +1,181 @@
+package com.daytonjwatson.ledger.storage;
+
+import com.daytonjwatson.ledger.economy.MoneyService;
+import com.daytonjwatson.ledger.economy.PlayerStore;
+import com.daytonjwatson.ledger.farming.SoilFatigueService;
+import com.daytonjwatson.ledger.market.MarketState;
+import com.daytonjwatson.ledger.util.BinarySnapshot;
+import com.daytonjwatson.ledger.util.PersistenceWriter;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+public class FileLedgerStore implements LedgerStore {
+	private static final int MARKET_FORMAT = 1;
+	private static final int SOIL_FORMAT = 3;
+	private static final int FORMAT_VERSION = 1;
+	private static final int ITEM_RECORD = 1;
+	private static final int MOB_RECORD = 2;
+	private final JavaPlugin plugin;
+	private final PersistenceWriter writer;
+	private final PlayerStore players;
+	private final File marketFile;
+	private final File soilFile;
+
+	public FileLedgerStore(JavaPlugin plugin, PersistenceWriter writer) {
+		this.plugin = plugin;
+		this.writer = writer;
+		this.players = new PlayerStore(plugin, writer);
+		this.marketFile = new File(plugin.getDataFolder(), "market.dat");
+		this.soilFile = new File(plugin.getDataFolder(), "soil-fatigue.dat");
+	}
+
+	@Override
+	public String getName() {
+		return "file";
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return !marketFile.exists() && !soilFile.exists() && players.highestSequence() == 0L;
+	}
+
+	@Override
+	public MoneyService.BalanceValues readPlayer(UUID uuid) {
+		return players.read(uuid);
+	}
+
+	@Override
+	public long playerSequence(UUID uuid) {
+		return players.segmentSequence(PlayerStore.segmentOf(uuid));
+	}
+
+	@Override
+	public long highestSequence() {
+		return players.highestSequence();
+	}
+
+	@Override
+	public void forEachPlayer(BiConsumer<UUID, MoneyService.BalanceValues> consumer) {
+		players.forEachPlayer(consumer);
+	}
+
+	@Override
+	public boolean writePlayers(Map<UUID, MoneyService.BalanceValues> balances, long journalSequence) {
+		return players.write(balances, journalSequence);
+	}
+
+	@Override
+	public int compactPlayers() {
+		return players.compact();
+	}
+
+	@Override
+	public Map<UUID, Long> readTotals() {
+		return players.readTotals();
+	}
+
+	@Override
+	public void writeTotals(Map<UUID, Long> totals) {
+		players.writeTotals(totals);
+	}
+
+	@Override
+	public MarketData loadMarket() {
+		MarketData market = readMarket(marketFile);
+		return market != null ? market : readMarket(backupOf(marketFile));
+	}
+
+	@Override
+	public synchronized void saveMarket(MarketData market) {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(MARKET_FORMAT, FORMAT_VERSION);
+		out.beginRecord().writeLong(market.capturedAt()).endRecord();
+		market.items().forEach((key, values) -> {
+			out.beginRecord().writeInt(ITEM_RECORD).writeString(key).writeDouble(values.soldAccumulator()).writeDouble(values.minedTotal());
+			out.endRecord();
+		});
+		market.mobs().forEach((key, values) -> {
+			out.beginRecord().writeInt(MOB_RECORD).writeString(key).writeDouble(values.killAccumulator());
+			out.endRecord();
+		});
+		writer.submit(marketFile, out.toByteArray());
+	}
+
+	@Override
+	public SoilFatigueService.Snapshot loadSoil() {
+		SoilFatigueService.Snapshot soil = readSoil(soilFile);
+		return soil != null ? soil : readSoil(backupOf(soilFile));
+	}
+
+	@Override
+	public synchronized void saveSoil(SoilFatigueService.Snapshot snapshot) {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(SOIL_FORMAT, FORMAT_VERSION);
+		out.beginRecord().writeLong(snapshot.capturedAt()).endRecord();
+		for (SoilFatigueService.SoilValues values : snapshot.entries()) {
+			out.beginRecord().writeUuid(values.worldId()).writeInt(values.x()).writeInt(values.y()).writeInt(values.z())
+				.writeDouble(values.fatigue()).writeLong(values.lastUpdate()).writeLong(values.lastTouched());
+			out.endRecord();
+		}
+		writer.submit(soilFile, out.toByteArray());
+	}
+
+	@Override
+	public void close() {
+		writer.flush();
+	}
+
+	private MarketData readMarket(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			BinarySnapshot.Reader in = BinarySnapshot.Reader.open(file, MARKET_FORMAT);
+			Map<String, MarketState.ItemValues> items = new HashMap<>();
+			Map<String, MarketState.MobValues> mobs = new HashMap<>();
+			long capturedAt = in.next() ? in.readLong() : System.currentTimeMillis();
+			while (in.next()) {
+				int type = in.readInt();
+				String key = in.readString();
+				if (type == ITEM_RECORD) {
+					items.put(key, new MarketState.ItemValues(in.readDouble(), in.readDouble()));
+				} else if (type == MOB_RECORD) {
+					mobs.put(key, new MarketState.MobValues(in.readDouble()));
+				}
+			}
+			return new MarketData(capturedAt, items, mobs, null);
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private SoilFatigueService.Snapshot readSoil(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			BinarySnapshot.Reader in = BinarySnapshot.Reader.open(file, SOIL_FORMAT);
+			List<SoilFatigueService.SoilValues> entries = new ArrayList<>();
+			long capturedAt = in.next() ? in.readLong() : System.currentTimeMillis();
+			while (in.next()) {
+				entries.add(new SoilFatigueService.SoilValues(in.readUuid(), in.readInt(), in.readInt(), in.readInt(),
+					in.readDouble(), in.readLong(), in.readLong()));
+			}
+			return new SoilFatigueService.Snapshot(capturedAt, entries, null);
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to load " + file.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private File backupOf(File file) {
+		return new File(file.getParentFile(), file.getName() + ".bak");
+	}
+}
@@ -0,0 +1,66 @@
+package com.daytonjwatson.ledger.storage;
+
+import com.daytonjwatson.ledger.economy.MoneyService;
+import com.daytonjwatson.ledger.farming.SoilFatigueService;
+import com.daytonjwatson.ledger.market.MarketState;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+public interface LedgerStore {
+	String getName();
+
+	boolean isEmpty();
+
+	MoneyService.BalanceValues readPlayer(UUID uuid);
+
+	long playerSequence(UUID uuid);
+
+	long highestSequence();
+
+	void forEachPlayer(BiConsumer<UUID, MoneyService.BalanceValues> consumer);
+
+	boolean writePlayers(Map<UUID, MoneyService.BalanceValues> players, long journalSequence);
+
+	int compactPlayers();
+
+	Map<UUID, Long> readTotals();
+
+	void writeTotals(Map<UUID, Long> totals);
+
+	MarketData loadMarket();
+
+	void saveMarket(MarketData market);
+
+	SoilFatigueService.Snapshot loadSoil();
+
+	void saveSoil(SoilFatigueService.Snapshot snapshot);
+
+	void close();
+
+	default void copyFrom(LedgerStore source) {
+		Map<UUID, MoneyService.BalanceValues> players = new HashMap<>();
+		source.forEachPlayer(players::put);
+		if (!players.isEmpty()) {
+			writePlayers(players, source.highestSequence());
+		}
+		MarketData market = source.loadMarket();
+		if (market != null) {
+			saveMarket(market);
+		}
+		SoilFatigueService.Snapshot soil = source.loadSoil();
+		if (soil != null) {
+			saveSoil(soil);
+		}
+	}
+
+	record MarketData(long capturedAt, Map<String, MarketState.ItemValues> items, Map<String, MarketState.MobValues> mobs,
+					  MarketChanges changes) {
+	}
+
+	record MarketChanges(long itemEpoch, double itemFactor, long mobEpoch, double mobFactor, Set<String> items, Set<String> mobs) {
+	}
+}
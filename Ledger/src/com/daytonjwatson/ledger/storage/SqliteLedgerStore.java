@@ -0,0 +1,529 @@
+package com.daytonjwatson.ledger.storage;
+
+import com.daytonjwatson.ledger.economy.MoneyService;
+import com.daytonjwatson.ledger.farming.SoilFatigueService;
+import com.daytonjwatson.ledger.market.MarketState;
+import com.daytonjwatson.ledger.util.AtomicFileWriter;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+public class SqliteLedgerStore implements LedgerStore {
+	private static final String JOURNAL_SEQUENCE = "journal_sequence";
+	private static final String MARKET_CAPTURED_AT = "market_captured_at";
+	private static final String SOIL_CAPTURED_AT = "soil_captured_at";
+	private static final String MARKET_ITEM_EPOCH = "market_item_epoch";
+	private static final String MARKET_MOB_EPOCH = "market_mob_epoch";
+	private static final String MARKET_ITEM_SCALE = "market_item_scale";
+	private static final String MARKET_MOB_SCALE = "market_mob_scale";
+	private final JavaPlugin plugin;
+	private final Connection connection;
+	private final Connection reader;
+	private final Object readLock = new Object();
+	private boolean marketStale;
+	private boolean soilStale;
+
+	public SqliteLedgerStore(JavaPlugin plugin, File file) throws SQLException {
+		this.plugin = plugin;
+		AtomicFileWriter.ensureDirectory(file.getParentFile());
+		this.connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA journal_mode=WAL");
+			statement.execute("PRAGMA synchronous=NORMAL");
+			statement.execute("PRAGMA busy_timeout=5000");
+			statement.execute("CREATE TABLE IF NOT EXISTS ledger_meta (meta_key TEXT PRIMARY KEY, meta_value INTEGER NOT NULL)");
+			statement.execute("CREATE TABLE IF NOT EXISTS players (uuid TEXT PRIMARY KEY, carried INTEGER NOT NULL, banked INTEGER NOT NULL, "
+				+ "specialization TEXT, journal_sequence INTEGER NOT NULL)");
+			statement.execute("CREATE TABLE IF NOT EXISTS player_upgrades (uuid TEXT NOT NULL, upgrade_id TEXT NOT NULL, level INTEGER NOT NULL, "
+				+ "PRIMARY KEY (uuid, upgrade_id))");
+			statement.execute("CREATE TABLE IF NOT EXISTS market_items (item_key TEXT PRIMARY KEY, sold REAL NOT NULL, mined REAL NOT NULL, "
+				+ "captured_at INTEGER NOT NULL)");
+			statement.execute("CREATE TABLE IF NOT EXISTS market_mobs (mob_key TEXT PRIMARY KEY, kills REAL NOT NULL, captured_at INTEGER NOT NULL)");
+			statement.execute("CREATE TABLE IF NOT EXISTS soil_entries (world TEXT NOT NULL, x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, "
+				+ "fatigue REAL NOT NULL, last_update INTEGER NOT NULL, last_touched INTEGER NOT NULL, captured_at INTEGER NOT NULL, "
+				+ "PRIMARY KEY (world, x, y, z))");
+			statement.execute("CREATE INDEX IF NOT EXISTS market_items_captured ON market_items (captured_at)");
+			statement.execute("CREATE INDEX IF NOT EXISTS market_mobs_captured ON market_mobs (captured_at)");
+			statement.execute("CREATE INDEX IF NOT EXISTS soil_entries_captured ON soil_entries (captured_at)");
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		this.reader = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+		try (Statement statement = reader.createStatement()) {
+			statement.execute("PRAGMA busy_timeout=5000");
+			statement.execute("PRAGMA query_only=ON");
+		} catch (SQLException e) {
+			reader.close();
+			connection.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "sqlite";
+	}
+
+	@Override
+	public boolean isEmpty() {
+		synchronized (readLock) {
+			try (Statement statement = reader.createStatement();
+				 ResultSet result = statement.executeQuery(
+					 "SELECT (SELECT COUNT(*) FROM ledger_meta) + (SELECT COUNT(*) FROM players)")) {
+				return result.next() && result.getLong(1) == 0L;
+			} catch (SQLException e) {
+				warn("inspect", e);
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public MoneyService.BalanceValues readPlayer(UUID uuid) {
+		synchronized (readLock) {
+			try (PreparedStatement select = reader.prepareStatement(
+				"SELECT carried, banked, specialization FROM players WHERE uuid = ?")) {
+				select.setString(1, uuid.toString());
+				try (ResultSet result = select.executeQuery()) {
+					if (!result.next()) {
+						return null;
+					}
+					return new MoneyService.BalanceValues(result.getLong(1), result.getLong(2), result.getString(3), readUpgrades(reader, uuid));
+				}
+			} catch (SQLException e) {
+				warn("read player " + uuid, e);
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public long playerSequence(UUID uuid) {
+		synchronized (readLock) {
+			try (PreparedStatement select = reader.prepareStatement("SELECT journal_sequence FROM players WHERE uuid = ?")) {
+				select.setString(1, uuid.toString());
+				try (ResultSet result = select.executeQuery()) {
+					return result.next() ? result.getLong(1) : 0L;
+				}
+			} catch (SQLException e) {
+				warn("read player " + uuid, e);
+				return 0L;
+			}
+		}
+	}
+
+	@Override
+	public long highestSequence() {
+		synchronized (readLock) {
+			try {
+				return readMeta(reader, JOURNAL_SEQUENCE, 0L);
+			} catch (SQLException e) {
+				warn("read journal sequence", e);
+				return 0L;
+			}
+		}
+	}
+
+	@Override
+	public void forEachPlayer(BiConsumer<UUID, MoneyService.BalanceValues> consumer) {
+		synchronized (readLock) {
+			Map<UUID, Map<String, Integer>> upgrades = new HashMap<>();
+			try (Statement statement = reader.createStatement()) {
+				try (ResultSet result = statement.executeQuery("SELECT uuid, upgrade_id, level FROM player_upgrades WHERE level > 0")) {
+					while (result.next()) {
+						UUID uuid = parseUuid(result.getString(1));
+						if (uuid != null) {
+							upgrades.computeIfAbsent(uuid, ignored -> new HashMap<>()).put(result.getString(2), result.getInt(3));
+						}
+					}
+				}
+				try (ResultSet result = statement.executeQuery("SELECT uuid, carried, banked, specialization FROM players")) {
+					while (result.next()) {
+						UUID uuid = parseUuid(result.getString(1));
+						if (uuid != null) {
+							consumer.accept(uuid, new MoneyService.BalanceValues(result.getLong(2), result.getLong(3), result.getString(4),
+								upgrades.getOrDefault(uuid, new HashMap<>())));
+						}
+					}
+				}
+			} catch (SQLException e) {
+				warn("read players", e);
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean writePlayers(Map<UUID, MoneyService.BalanceValues> players, long journalSequence) {
+		try {
+			connection.setAutoCommit(false);
+			try (PreparedStatement upsert = connection.prepareStatement(
+				"INSERT OR REPLACE INTO players (uuid, carried, banked, specialization, journal_sequence) VALUES (?, ?, ?, ?, ?)");
+				 PreparedStatement clearUpgrades = connection.prepareStatement("DELETE FROM player_upgrades WHERE uuid = ?");
+				 PreparedStatement insertUpgrade = connection.prepareStatement(
+					 "INSERT INTO player_upgrades (uuid, upgrade_id, level) VALUES (?, ?, ?)")) {
+				for (Map.Entry<UUID, MoneyService.BalanceValues> entry : players.entrySet()) {
+					String uuid = entry.getKey().toString();
+					MoneyService.BalanceValues balance = entry.getValue();
+					upsert.setString(1, uuid);
+					upsert.setLong(2, balance.carried());
+					upsert.setLong(3, balance.banked());
+					upsert.setString(4, balance.specializationChoice());
+					upsert.setLong(5, journalSequence);
+					upsert.addBatch();
+					clearUpgrades.setString(1, uuid);
+					clearUpgrades.addBatch();
+					for (Map.Entry<String, Integer> upgrade : balance.upgrades().entrySet()) {
+						if (upgrade.getValue() == null || upgrade.getValue() <= 0) {
+							continue;
+						}
+						insertUpgrade.setString(1, uuid);
+						insertUpgrade.setString(2, upgrade.getKey());
+						insertUpgrade.setInt(3, upgrade.getValue());
+						insertUpgrade.addBatch();
+					}
+				}
+				upsert.executeBatch();
+				clearUpgrades.executeBatch();
+				insertUpgrade.executeBatch();
+			}
+			if (journalSequence > readMeta(JOURNAL_SEQUENCE, 0L)) {
+				writeMeta(JOURNAL_SEQUENCE, journalSequence);
+			}
+			connection.commit();
+			return true;
+		} catch (SQLException e) {
+			rollback();
+			warn("write players", e);
+			return false;
+		} finally {
+			resetAutoCommit();
+		}
+	}
+
+	@Override
+	public synchronized int compactPlayers() {
+		try (Statement statement = connection.createStatement()) {
+			connection.setAutoCommit(false);
+			statement.executeUpdate("DELETE FROM player_upgrades WHERE level <= 0");
+			int removed = statement.executeUpdate("DELETE FROM players WHERE carried = 0 AND banked = 0 "
+				+ "AND (specialization IS NULL OR TRIM(specialization) = '') "
+				+ "AND NOT EXISTS (SELECT 1 FROM player_upgrades u WHERE u.uuid = players.uuid)");
+			connection.commit();
+			return removed;
+		} catch (SQLException e) {
+			rollback();
+			warn("compact players", e);
+			return 0;
+		} finally {
+			resetAutoCommit();
+		}
+	}
+
+	@Override
+	public Map<UUID, Long> readTotals() {
+		synchronized (readLock) {
+			Map<UUID, Long> totals = new HashMap<>();
+			try (Statement statement = reader.createStatement();
+				 ResultSet result = statement.executeQuery("SELECT uuid, carried + banked FROM players")) {
+				while (result.next()) {
+					UUID uuid = parseUuid(result.getString(1));
+					if (uuid != null) {
+						totals.put(uuid, result.getLong(2));
+					}
+				}
+				return totals;
+			} catch (SQLException e) {
+				warn("read player totals", e);
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public void writeTotals(Map<UUID, Long> totals) {
+	}
+
+	@Override
+	public MarketData loadMarket() {
+		synchronized (readLock) {
+			try {
+				long capturedAt = readMeta(reader, MARKET_CAPTURED_AT, -1L);
+				if (capturedAt < 0L) {
+					return null;
+				}
+				double itemScale = readScale(MARKET_ITEM_SCALE);
+				double mobScale = readScale(MARKET_MOB_SCALE);
+				Map<String, MarketState.ItemValues> items = new HashMap<>();
+				Map<String, MarketState.MobValues> mobs = new HashMap<>();
+				try (Statement statement = reader.createStatement()) {
+					try (ResultSet result = statement.executeQuery("SELECT item_key, sold, mined FROM market_items")) {
+						while (result.next()) {
+							items.put(result.getString(1), new MarketState.ItemValues(result.getDouble(2) * itemScale, result.getDouble(3)));
+						}
+					}
+					try (ResultSet result = statement.executeQuery("SELECT mob_key, kills FROM market_mobs")) {
+						while (result.next()) {
+							mobs.put(result.getString(1), new MarketState.MobValues(result.getDouble(2) * mobScale));
+						}
+					}
+				}
+				return new MarketData(capturedAt, items, mobs, null);
+			} catch (SQLException e) {
+				warn("load market", e);
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void saveMarket(MarketData market) {
+		try {
+			connection.setAutoCommit(false);
+			MarketChanges changes = market.changes();
+			boolean incremental = changes != null && !marketStale && changes.itemEpoch() == readMeta(MARKET_ITEM_EPOCH, -1L)
+				&& changes.mobEpoch() == readMeta(MARKET_MOB_EPOCH, -1L);
+			double itemScale = changes != null ? changes.itemFactor() : 1.0;
+			double mobScale = changes != null ? changes.mobFactor() : 1.0;
+			try (PreparedStatement items = connection.prepareStatement(
+				"INSERT OR REPLACE INTO market_items (item_key, sold, mined, captured_at) VALUES (?, ?, ?, ?)");
+				 PreparedStatement mobs = connection.prepareStatement(
+					 "INSERT OR REPLACE INTO market_mobs (mob_key, kills, captured_at) VALUES (?, ?, ?)")) {
+				for (Map.Entry<String, MarketState.ItemValues> entry : market.items().entrySet()) {
+					if (incremental && !changes.items().contains(entry.getKey())) {
+						continue;
+					}
+					items.setString(1, entry.getKey());
+					items.setDouble(2, entry.getValue().soldAccumulator() / itemScale);
+					items.setDouble(3, entry.getValue().minedTotal());
+					items.setLong(4, market.capturedAt());
+					items.addBatch();
+				}
+				for (Map.Entry<String, MarketState.MobValues> entry : market.mobs().entrySet()) {
+					if (incremental && !changes.mobs().contains(entry.getKey())) {
+						continue;
+					}
+					mobs.setString(1, entry.getKey());
+					mobs.setDouble(2, entry.getValue().killAccumulator() / mobScale);
+					mobs.setLong(3, market.capturedAt());
+					mobs.addBatch();
+				}
+				items.executeBatch();
+				mobs.executeBatch();
+			}
+			if (!incremental) {
+				deleteOlderThan("market_items", market.capturedAt());
+				deleteOlderThan("market_mobs", market.capturedAt());
+				writeMeta(MARKET_ITEM_EPOCH, changes != null ? changes.itemEpoch() : -1L);
+				writeMeta(MARKET_MOB_EPOCH, changes != null ? changes.mobEpoch() : -1L);
+			}
+			writeMeta(MARKET_ITEM_SCALE, Double.doubleToLongBits(itemScale));
+			writeMeta(MARKET_MOB_SCALE, Double.doubleToLongBits(mobScale));
+			writeMeta(MARKET_CAPTURED_AT, market.capturedAt());
+			connection.commit();
+			marketStale = false;
+		} catch (SQLException e) {
+			rollback();
+			marketStale = true;
+			warn("save market", e);
+		} finally {
+			resetAutoCommit();
+		}
+	}
+
+	@Override
+	public SoilFatigueService.Snapshot loadSoil() {
+		synchronized (readLock) {
+			try {
+				long capturedAt = readMeta(reader, SOIL_CAPTURED_AT, -1L);
+				if (capturedAt < 0L) {
+					return null;
+				}
+				List<SoilFatigueService.SoilValues> entries = new ArrayList<>();
+				try (Statement statement = reader.createStatement();
+					 ResultSet result = statement.executeQuery(
+						 "SELECT world, x, y, z, fatigue, last_update, last_touched FROM soil_entries")) {
+					while (result.next()) {
+						UUID world = parseUuid(result.getString(1));
+						if (world != null) {
+							entries.add(new SoilFatigueService.SoilValues(world, result.getInt(2), result.getInt(3), result.getInt(4),
+								result.getDouble(5), result.getLong(6), result.getLong(7)));
+						}
+					}
+				}
+				return new SoilFatigueService.Snapshot(capturedAt, entries, null);
+			} catch (SQLException e) {
+				warn("load soil fatigue", e);
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void saveSoil(SoilFatigueService.Snapshot snapshot) {
+		try {
+			connection.setAutoCommit(false);
+			Set<SoilFatigueService.ChunkPosition> changed = snapshot.changedChunks() != null && !soilStale
+				? new HashSet<>(snapshot.changedChunks()) : null;
+			try (PreparedStatement upsert = connection.prepareStatement("INSERT OR REPLACE INTO soil_entries "
+				+ "(world, x, y, z, fatigue, last_update, last_touched, captured_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+				for (SoilFatigueService.SoilValues values : snapshot.entries()) {
+					if (changed != null && !changed.contains(new SoilFatigueService.ChunkPosition(values.worldId(), values.x() >> 4,
+						values.z() >> 4))) {
+						continue;
+					}
+					upsert.setString(1, values.worldId().toString());
+					upsert.setInt(2, values.x());
+					upsert.setInt(3, values.y());
+					upsert.setInt(4, values.z());
+					upsert.setDouble(5, values.fatigue());
+					upsert.setLong(6, values.lastUpdate());
+					upsert.setLong(7, values.lastTouched());
+					upsert.setLong(8, snapshot.capturedAt());
+					upsert.addBatch();
+				}
+				upsert.executeBatch();
+			}
+			if (changed == null) {
+				deleteOlderThan("soil_entries", snapshot.capturedAt());
+			} else {
+				deleteStaleSoil(changed, snapshot.capturedAt());
+			}
+			writeMeta(SOIL_CAPTURED_AT, snapshot.capturedAt());
+			connection.commit();
+			soilStale = false;
+		} catch (SQLException e) {
+			rollback();
+			soilStale = true;
+			warn("save soil fatigue", e);
+		} finally {
+			resetAutoCommit();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+		} catch (SQLException e) {
+			warn("checkpoint", e);
+		}
+		synchronized (readLock) {
+			try {
+				reader.close();
+			} catch (SQLException e) {
+				warn("close reader", e);
+			}
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			warn("close", e);
+		}
+	}
+
+	private Map<String, Integer> readUpgrades(Connection source, UUID uuid) throws SQLException {
+		Map<String, Integer> upgrades = new HashMap<>();
+		try (PreparedStatement select = source.prepareStatement(
+			"SELECT upgrade_id, level FROM player_upgrades WHERE uuid = ? AND level > 0")) {
+			select.setString(1, uuid.toString());
+			try (ResultSet result = select.executeQuery()) {
+				while (result.next()) {
+					upgrades.put(result.getString(1), result.getInt(2));
+				}
+			}
+		}
+		return upgrades;
+	}
+
+	private long readMeta(String key, long fallback) throws SQLException {
+		return readMeta(connection, key, fallback);
+	}
+
+	private long readMeta(Connection source, String key, long fallback) throws SQLException {
+		try (PreparedStatement select = source.prepareStatement("SELECT meta_value FROM ledger_meta WHERE meta_key = ?")) {
+			select.setString(1, key);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next() ? result.getLong(1) : fallback;
+			}
+		}
+	}
+
+	private double readScale(String key) throws SQLException {
+		long bits = readMeta(reader, key, -1L);
+		return bits == -1L ? 1.0 : Double.longBitsToDouble(bits);
+	}
+
+	private void writeMeta(String key, long value) throws SQLException {
+		try (PreparedStatement upsert = connection.prepareStatement("INSERT OR REPLACE INTO ledger_meta (meta_key, meta_value) VALUES (?, ?)")) {
+			upsert.setString(1, key);
+			upsert.setLong(2, value);
+			upsert.executeUpdate();
+		}
+	}
+
+	private void deleteOlderThan(String table, long capturedAt) throws SQLException {
+		try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE captured_at < ?")) {
+			delete.setLong(1, capturedAt);
+			delete.executeUpdate();
+		}
+	}
+
+	private void deleteStaleSoil(Set<SoilFatigueService.ChunkPosition> chunks, long capturedAt) throws SQLException {
+		try (PreparedStatement delete = connection.prepareStatement("DELETE FROM soil_entries WHERE world = ? "
+			+ "AND x BETWEEN ? AND ? AND z BETWEEN ? AND ? AND captured_at < ?")) {
+			for (SoilFatigueService.ChunkPosition chunk : chunks) {
+				delete.setString(1, chunk.worldId().toString());
+				delete.setInt(2, chunk.chunkX() << 4);
+				delete.setInt(3, (chunk.chunkX() << 4) + 15);
+				delete.setInt(4, chunk.chunkZ() << 4);
+				delete.setInt(5, (chunk.chunkZ() << 4) + 15);
+				delete.setLong(6, capturedAt);
+				delete.addBatch();
+			}
+			delete.executeBatch();
+		}
+	}
+
+	private void rollback() {
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			warn("roll back", e);
+		}
+	}
+
+	private void resetAutoCommit() {
+		try {
+			connection.setAutoCommit(true);
+		} catch (SQLException e) {
+			warn("reset auto-commit", e);
+		}
+	}
+
+	private UUID parseUuid(String raw) {
+		try {
+			return UUID.fromString(raw);
+		} catch (IllegalArgumentException | NullPointerException ex) {
+			return null;
+		}
+	}
+
+	private void warn(String action, SQLException e) {
+		plugin.getLogger().warning("SQLite store failed to " + action + ": " + e.getMessage());
+	}
+}
@@ -0,0 +1,73 @@
+package com.daytonjwatson.ledger.upgrades;
+
+public class EffectiveModifiers {
+	private final double barterMultiplier;
+	private final SpecializationDomain specialization;
+	private final int specializationLevel;
+	private final double specializationBonus;
+	private final double specializationPenalty;
+	private final int logisticsLevel;
+	private final double logisticsMaxBonus;
+	private final int logisticsTargetDistinct;
+	private final int refinementLevel;
+	private final double insuranceReduction;
+	private final long vendorTiers;
+
+	public EffectiveModifiers(double barterMultiplier, SpecializationDomain specialization, int specializationLevel,
+							  int logisticsLevel, double logisticsMaxBonus, int logisticsTargetDistinct, int refinementLevel,
+							  double insuranceReduction, long vendorTiers) {
+		this.barterMultiplier = barterMultiplier;
+		this.specialization = specialization;
+		this.specializationLevel = specializationLevel;
+		this.specializationBonus = 1.0 + (0.03 * specializationLevel);
+		this.specializationPenalty = 1.0 - (0.015 * specializationLevel);
+		this.logisticsLevel = logisticsLevel;
+		this.logisticsMaxBonus = logisticsMaxBonus;
+		this.logisticsTargetDistinct = logisticsTargetDistinct;
+		this.refinementLevel = refinementLevel;
+		this.insuranceReduction = insuranceReduction;
+		this.vendorTiers = vendorTiers;
+	}
+
+	public double getBarterMultiplier() {
+		return barterMultiplier;
+	}
+
+	public SpecializationDomain getSpecialization() {
+		return specialization;
+	}
+
+	public int getSpecializationLevel() {
+		return specializationLevel;
+	}
+
+	public double getSpecializationMultiplier(SpecializationDomain domain) {
+		if (specializationLevel <= 0 || specialization == SpecializationDomain.NONE || domain == SpecializationDomain.NONE) {
+			return 1.0;
+		}
+		return domain == specialization ? specializationBonus : specializationPenalty;
+	}
+
+	public double getLogisticsMultiplier(int distinctTypes) {
+		if (logisticsLevel <= 0 || distinctTypes <= 0) {
+			return 1.0;
+		}
+		double ratio = Math.min((double) distinctTypes / logisticsTargetDistinct, 1.0);
+		return 1.0 + (logisticsMaxBonus * ratio);
+	}
+
+	public int getRefinementLevel() {
+		return refinementLevel;
+	}
+
+	public double getInsuranceReduction() {
+		return insuranceReduction;
+	}
+
+	public boolean hasVendorTier(int tier) {
+		if (tier <= 0) {
+			return true;
+		}
+		return tier < Long.SIZE && (vendorTiers & (1L << tier)) != 0L;
+	}
+}
@@ -0,0 +1,32 @@
+package com.daytonjwatson.ledger.upgrades;
+
+import java.util.Locale;
+
+public enum SpecializationDomain {
+	MINER("spec_miner"),
+	FARMER("spec_farmer"),
+	HUNTER("spec_hunter"),
+	NONE(null);
+
+	private final String upgradeId;
+
+	SpecializationDomain(String upgradeId) {
+		this.upgradeId = upgradeId;
+	}
+
+	public String getUpgradeId() {
+		return upgradeId;
+	}
+
+	public static SpecializationDomain fromChoice(String choice) {
+		if (choice == null) {
+			return NONE;
+		}
+		return switch (choice.toUpperCase(Locale.ROOT)) {
+			case "MINER" -> MINER;
+			case "FARMER" -> FARMER;
+			case "HUNTER" -> HUNTER;
+			default -> NONE;
+		};
+	}
+}
@@ -9,6 +9,7 @@ public class UpgradeDefinition {
 		CHOICE
 	}
 
+	private final int ordinal;
 	private final String id;
 	private final String name;
 	private final String description;
@@ -23,9 +24,10 @@ public class UpgradeDefinition {
 	private final int refinementLevel;
 	private final List<String> prerequisites;
 
-	public UpgradeDefinition(String id, String name, String description, Type type, int maxLevel, double costBase, double costGrowth,
+	public UpgradeDefinition(int ordinal, String id, String name, String description, Type type, int maxLevel, double costBase, double costGrowth,
 							 long fixedCost, String specializationChoice, String specializationRequirement, int unlocksVendorTier,
 							 int refinementLevel, List<String> prerequisites) {
+		this.ordinal = ordinal;
 		this.id = id;
 		this.name = name;
 		this.description = description;
@@ -41,6 +43,10 @@ public class UpgradeDefinition {
 		this.prerequisites = prerequisites == null ? List.of() : List.copyOf(prerequisites);
 	}
 
+	public int getOrdinal() {
+		return ordinal;
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -15,12 +15,18 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class UpgradeService {
+	private static final long OFFLINE_CACHE_MS = 30_000L;
 	private final ConfigManager configManager;
 	private final MoneyService moneyService;
 	private final SpawnRegionService spawnRegionService;
 	private final Map<String, UpgradeDefinition> definitions = new HashMap<>();
+	private final Map<UUID, EffectiveModifiers> modifiers = new ConcurrentHashMap<>();
+	private final Map<UUID, OfflineModifiers> offlineModifiers = new ConcurrentHashMap<>();
+	private final List<Consumer<UUID>> invalidationListeners = new ArrayList<>();
 
 	public UpgradeService(ConfigManager configManager, MoneyService moneyService, SpawnRegionService spawnRegionService) {
 		this.configManager = configManager;
@@ -38,19 +44,65 @@ public class UpgradeService {
 		if (id == null) {
 			return null;
 		}
-		return definitions.get(id.toLowerCase(Locale.ROOT));
+		UpgradeDefinition definition = definitions.get(id);
+		return definition != null ? definition : definitions.get(id.toLowerCase(Locale.ROOT));
 	}
 
 	public int getLevel(UUID uuid, String upgradeId) {
-		return moneyService.getUpgradeLevel(uuid, upgradeId);
+		UpgradeDefinition definition = getDefinition(upgradeId);
+		return definition != null ? getLevel(uuid, definition) : moneyService.getUpgradeLevel(uuid, upgradeId);
+	}
+
+	public int getLevel(UUID uuid, UpgradeDefinition definition) {
+		return moneyService.getUpgradeLevel(uuid, definition.getOrdinal());
 	}
 
 	public void setLevel(UUID uuid, String upgradeId, int level) {
 		moneyService.setUpgradeLevel(uuid, upgradeId, level);
+		invalidateModifiers(uuid);
+	}
+
+	public void setSpecializationChoice(UUID uuid, String choice) {
+		moneyService.setSpecializationChoice(uuid, choice);
+		invalidateModifiers(uuid);
+	}
+
+	public EffectiveModifiers getModifiers(UUID uuid) {
+		EffectiveModifiers cached = modifiers.get(uuid);
+		if (cached != null) {
+			return cached;
+		}
+		if (Bukkit.getPlayer(uuid) == null) {
+			return getOfflineModifiers(uuid);
+		}
+		offlineModifiers.remove(uuid);
+		return modifiers.computeIfAbsent(uuid, this::computeModifiers);
+	}
+
+	private EffectiveModifiers getOfflineModifiers(UUID uuid) {
+		long now = System.currentTimeMillis();
+		OfflineModifiers cached = offlineModifiers.get(uuid);
+		if (cached != null && cached.expiresAt() > now) {
+			return cached.modifiers();
+		}
+		offlineModifiers.values().removeIf(entry -> entry.expiresAt() <= now);
+		EffectiveModifiers computed = computeModifiers(uuid);
+		offlineModifiers.put(uuid, new OfflineModifiers(computed, now + OFFLINE_CACHE_MS));
+		return computed;
+	}
+
+	public void invalidateModifiers(UUID uuid) {
+		modifiers.remove(uuid);
+		offlineModifiers.remove(uuid);
+		invalidationListeners.forEach(listener -> listener.accept(uuid));
+	}
+
+	public void addInvalidationListener(Consumer<UUID> listener) {
+		invalidationListeners.add(listener);
 	}
 
 	public boolean hasUpgrade(UUID uuid, String upgradeId) {
-		return moneyService.hasUpgrade(uuid, upgradeId);
+		return getLevel(uuid, upgradeId) > 0;
 	}
 
 	public String getSpecializationChoice(UUID uuid) {
@@ -58,18 +110,7 @@ public class UpgradeService {
 	}
 
 	public boolean hasVendorTierUnlocked(UUID uuid, int tier) {
-		if (tier <= 0) {
-			return true;
-		}
-		for (UpgradeDefinition definition : definitions.values()) {
-			if (definition.getUnlocksVendorTier() != tier) {
-				continue;
-			}
-			if (getLevel(uuid, definition.getId()) >= 1) {
-				return true;
-			}
-		}
-		return false;
+		return getModifiers(uuid).hasVendorTier(tier);
 	}
 
 	public boolean meetsPrerequisites(UUID uuid, String upgradeId) {
@@ -111,7 +152,7 @@ public class UpgradeService {
 			return PurchaseResult.failure("Unknown upgrade id: " + upgradeId);
 		}
 		UUID uuid = player.getUniqueId();
-		int currentLevel = getLevel(uuid, definition.getId());
+		int currentLevel = getLevel(uuid, definition);
 		if (definition.getType() == UpgradeDefinition.Type.LEVEL && currentLevel >= definition.getMaxLevel()) {
 			return PurchaseResult.failure("That upgrade is already maxed.");
 		}
@@ -151,7 +192,7 @@ public class UpgradeService {
 		int newLevel = definition.getType() == UpgradeDefinition.Type.LEVEL ? currentLevel + 1 : 1;
 		setLevel(uuid, definition.getId(), newLevel);
 		if (definition.getType() == UpgradeDefinition.Type.CHOICE) {
-			moneyService.setSpecializationChoice(uuid, definition.getSpecializationChoice());
+			setSpecializationChoice(uuid, definition.getSpecializationChoice());
 		}
 		return PurchaseResult.success("Purchased " + definition.getName() + " for $" + cost + ". " + getNextEffect(definition, uuid, newLevel));
 	}
@@ -184,7 +225,7 @@ public class UpgradeService {
 		if (player == null || definition == null) {
 			return "";
 		}
-		int level = getLevel(player.getUniqueId(), definition.getId());
+		int level = getLevel(player.getUniqueId(), definition);
 		String levelText = definition.getType() == UpgradeDefinition.Type.LEVEL
 			? "Level " + level + "/" + definition.getMaxLevel()
 			: (level > 0 ? "Unlocked" : "Locked");
@@ -199,43 +240,47 @@ public class UpgradeService {
 		if (level <= 0 || distinctTypes <= 0) {
 			return 1.0;
 		}
-		int clampedLevel = Math.max(1, Math.min(5, level));
-		double maxBonus = switch (clampedLevel) {
-			case 1 -> 0.12;
-			case 2 -> 0.14;
-			case 3 -> 0.16;
-			case 4 -> 0.18;
-			default -> 0.20;
-		};
-		int targetDistinct = switch (clampedLevel) {
-			case 1 -> 12;
-			case 2 -> 11;
-			case 3 -> 10;
-			case 4 -> 9;
-			default -> 8;
-		};
-		double ratio = Math.min((double) distinctTypes / targetDistinct, 1.0);
-		return 1.0 + (maxBonus * ratio);
+		double ratio = Math.min((double) distinctTypes / getLogisticsTargetDistinct(level), 1.0);
+		return 1.0 + (getLogisticsMaxBonusPercent(level) / 100.0 * ratio);
 	}
 
 	public int getHighestRefinementLevel(UUID uuid) {
-		int highest = 0;
-		for (UpgradeDefinition definition : definitions.values()) {
-			if (definition.getRefinementLevel() <= 0) {
-				continue;
-			}
-			if (getLevel(uuid, definition.getId()) <= 0) {
-				continue;
-			}
-			highest = Math.max(highest, definition.getRefinementLevel());
-		}
-		return highest;
+		return getModifiers(uuid).getRefinementLevel();
 	}
 
 	public void reloadDefinitions() {
 		definitions.clear();
 		loadDefinitions();
 		moneyService.clampUpgradeLevels(definitions);
+		modifiers.clear();
+		offlineModifiers.clear();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			invalidationListeners.forEach(listener -> listener.accept(player.getUniqueId()));
+		}
+	}
+
+	private EffectiveModifiers computeModifiers(UUID uuid) {
+		int refinementLevel = 0;
+		long vendorTiers = 0L;
+		for (UpgradeDefinition definition : definitions.values()) {
+			if (definition.getRefinementLevel() <= 0 && definition.getUnlocksVendorTier() <= 0) {
+				continue;
+			}
+			if (getLevel(uuid, definition) <= 0) {
+				continue;
+			}
+			refinementLevel = Math.max(refinementLevel, definition.getRefinementLevel());
+			int tier = definition.getUnlocksVendorTier();
+			if (tier > 0 && tier < Long.SIZE) {
+				vendorTiers |= 1L << tier;
+			}
+		}
+		SpecializationDomain specialization = SpecializationDomain.fromChoice(getSpecializationChoice(uuid));
+		int specializationLevel = specialization == SpecializationDomain.NONE ? 0 : getLevel(uuid, specialization.getUpgradeId());
+		int logisticsLevel = getLevel(uuid, "logistics");
+		return new EffectiveModifiers(getBarterMultiplier(getLevel(uuid, "barter")), specialization, specializationLevel,
+			logisticsLevel, getLogisticsMaxBonusPercent(logisticsLevel) / 100.0, getLogisticsTargetDistinct(logisticsLevel),
+			refinementLevel, 0.02 * getLevel(uuid, "insurance"), vendorTiers);
 	}
 
 	private void loadDefinitions() {
@@ -297,7 +342,7 @@ public class UpgradeService {
 				warnings.add("Upgrade " + id + " cannot be both vendor unlock and refinement.");
 			}
 			List<String> prerequisites = section.getStringList("requires");
-			definitions.put(id, new UpgradeDefinition(id, name, description, type, maxLevel, costBase, costGrowth,
+			definitions.put(id, new UpgradeDefinition(definitions.size(), id, name, description, type, maxLevel, costBase, costGrowth,
 				fixedCost, specializationChoice, specializationRequirement, unlocksVendorTier, refinementLevel, prerequisites));
 		}
 		warnings.addAll(validatePrerequisites());
@@ -383,6 +428,17 @@ public class UpgradeService {
 		};
 	}
 
+	private int getLogisticsTargetDistinct(int level) {
+		int clampedLevel = Math.max(1, Math.min(5, level));
+		return switch (clampedLevel) {
+			case 1 -> 12;
+			case 2 -> 11;
+			case 3 -> 10;
+			case 4 -> 9;
+			default -> 8;
+		};
+	}
+
 	private String formatDecimal(double value) {
 		return String.format(Locale.US, "%.2f", value);
 	}
@@ -416,4 +472,7 @@ public class UpgradeService {
 			return new PurchaseResult(false, message);
 		}
 	}
+
+	private record OfflineModifiers(EffectiveModifiers modifiers, long expiresAt) {
+	}
 }
@@ -30,7 +30,7 @@ public final class AtomicFileWriter {
 			outputStream.getFD().sync();
 		}
 		if (target.exists()) {
-			Files.copy(target.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(target.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		}
 		try {
 			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
@@ -0,0 +1,198 @@
+package com.daytonjwatson.ledger.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+public final class BinarySnapshot {
+	private static final int MAGIC = 0x4C444752;
+	private static final int FOOTER = -1;
+	private static final int HEADER_BYTES = 12;
+	private static final int FOOTER_BYTES = 8;
+
+	private BinarySnapshot() {
+	}
+
+	public static class Writer {
+		private ByteBuffer buffer = ByteBuffer.allocate(4096);
+		private int recordStart = -1;
+
+		public Writer(int format, int version) {
+			buffer.putInt(MAGIC);
+			buffer.putInt(format);
+			buffer.putInt(version);
+		}
+
+		public Writer beginRecord() {
+			ensure(4);
+			recordStart = buffer.position();
+			buffer.putInt(0);
+			return this;
+		}
+
+		public Writer writeInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+			return this;
+		}
+
+		public Writer writeLong(long value) {
+			ensure(8);
+			buffer.putLong(value);
+			return this;
+		}
+
+		public Writer writeDouble(double value) {
+			ensure(8);
+			buffer.putDouble(value);
+			return this;
+		}
+
+		public Writer writeUuid(UUID value) {
+			ensure(16);
+			buffer.putLong(value.getMostSignificantBits());
+			buffer.putLong(value.getLeastSignificantBits());
+			return this;
+		}
+
+		public Writer writeString(String value) {
+			if (value == null) {
+				return writeInt(-1);
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			ensure(4 + bytes.length);
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+			return this;
+		}
+
+		public void endRecord() {
+			buffer.putInt(recordStart, buffer.position() - recordStart - 4);
+			recordStart = -1;
+		}
+
+		public byte[] toByteArray() {
+			ensure(FOOTER_BYTES);
+			buffer.putInt(FOOTER);
+			CRC32C crc = new CRC32C();
+			crc.update(buffer.array(), 0, buffer.position());
+			buffer.putInt((int) crc.getValue());
+			return Arrays.copyOf(buffer.array(), buffer.position());
+		}
+
+		private void ensure(int bytes) {
+			if (buffer.remaining() >= bytes) {
+				return;
+			}
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+	}
+
+	public static class Reader {
+		private final ByteBuffer buffer;
+		private final int version;
+		private ByteBuffer record;
+
+		private Reader(ByteBuffer buffer, int version) {
+			this.buffer = buffer;
+			this.version = version;
+		}
+
+		public static Reader open(File file, int format) throws IOException {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size < HEADER_BYTES + FOOTER_BYTES || size > Integer.MAX_VALUE) {
+					throw new IOException("Invalid snapshot size " + size);
+				}
+				ByteBuffer data = ByteBuffer.allocate((int) size);
+				while (data.hasRemaining()) {
+					if (channel.read(data) < 0) {
+						throw new IOException("Unexpected end of snapshot");
+					}
+				}
+				data.flip();
+				int crcOffset = (int) size - 4;
+				CRC32C crc = new CRC32C();
+				crc.update(data.duplicate().limit(crcOffset));
+				if ((int) crc.getValue() != data.getInt(crcOffset)) {
+					throw new IOException("Checksum mismatch");
+				}
+				if (data.getInt(0) != MAGIC || data.getInt(4) != format || data.getInt(crcOffset - 4) != FOOTER) {
+					throw new IOException("Unexpected snapshot header");
+				}
+				ByteBuffer records = data.duplicate();
+				records.position(HEADER_BYTES).limit(crcOffset - 4);
+				return new Reader(records, data.getInt(8));
+			}
+		}
+
+		public int getVersion() {
+			return version;
+		}
+
+		public boolean next() throws IOException {
+			if (!buffer.hasRemaining()) {
+				record = null;
+				return false;
+			}
+			int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IOException("Corrupt record length " + length);
+			}
+			record = buffer.slice().limit(length);
+			buffer.position(buffer.position() + length);
+			return true;
+		}
+
+		public int readInt() throws IOException {
+			try {
+				return record.getInt();
+			} catch (BufferUnderflowException ex) {
+				throw new IOException("Truncated record");
+			}
+		}
+
+		public long readLong() throws IOException {
+			try {
+				return record.getLong();
+			} catch (BufferUnderflowException ex) {
+				throw new IOException("Truncated record");
+			}
+		}
+
+		public double readDouble() throws IOException {
+			try {
+				return record.getDouble();
+			} catch (BufferUnderflowException ex) {
+				throw new IOException("Truncated record");
+			}
+		}
+
+		public UUID readUuid() throws IOException {
+			return new UUID(readLong(), readLong());
+		}
+
+		public String readString() throws IOException {
+			int length = readInt();
+			if (length < 0) {
+				return null;
+			}
+			if (length > record.remaining()) {
+				throw new IOException("Truncated record");
+			}
+			byte[] bytes = new byte[length];
+			record.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.daytonjwatson.ledger.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ExpiryWheel<T> {
+	private final int slotSeconds;
+	private final List<List<Scheduled<T>>> slots;
+	private long cursor;
+	private int size;
+
+	public ExpiryWheel(int slotSeconds, int slotCount, int now) {
+		this.slotSeconds = Math.max(1, slotSeconds);
+		this.slots = new ArrayList<>(slotCount);
+		for (int i = 0; i < slotCount; i++) {
+			slots.add(new ArrayList<>());
+		}
+		this.cursor = now / this.slotSeconds - 1;
+	}
+
+	public void schedule(T value, int expiresAt) {
+		long slot = Math.max(expiresAt / slotSeconds, cursor + 1);
+		slots.get((int) (slot % slots.size())).add(new Scheduled<>(value, expiresAt));
+		size++;
+	}
+
+	public int advance(int now, Consumer<Scheduled<T>> consumer) {
+		long target = now / slotSeconds;
+		long first = Math.max(cursor + 1, target - slots.size() + 1);
+		List<Scheduled<T>> due = new ArrayList<>();
+		for (long slot = first; slot <= target; slot++) {
+			List<Scheduled<T>> entries = slots.get((int) (slot % slots.size()));
+			for (int i = entries.size() - 1; i >= 0; i--) {
+				Scheduled<T> entry = entries.get(i);
+				if (entry.expiresAt() > now) {
+					continue;
+				}
+				entries.set(i, entries.get(entries.size() - 1));
+				entries.remove(entries.size() - 1);
+				due.add(entry);
+			}
+		}
+		cursor = target - 1;
+		size -= due.size();
+		due.forEach(consumer);
+		return due.size();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public record Scheduled<T>(T value, int expiresAt) {
+	}
+}
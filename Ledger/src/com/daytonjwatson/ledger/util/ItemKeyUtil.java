@@ -15,6 +15,26 @@ public final class ItemKeyUtil {
 		return material.name().toUpperCase(Locale.ROOT);
 	}
 
+	public static Material toMaterial(String key) {
+		if (key == null) {
+			return null;
+		}
+		String trimmed = key.trim();
+		if (trimmed.isEmpty()) {
+			return null;
+		}
+		Material material = Material.matchMaterial(trimmed);
+		if (material != null) {
+			return material;
+		}
+		int namespaceIndex = trimmed.indexOf(':');
+		if (namespaceIndex >= 0 && namespaceIndex < trimmed.length() - 1
+			&& trimmed.substring(0, namespaceIndex).equalsIgnoreCase("minecraft")) {
+			return Material.matchMaterial(trimmed.substring(namespaceIndex + 1));
+		}
+		return null;
+	}
+
 	public static String normalizeKey(String key) {
 		if (key == null) {
 			return null;
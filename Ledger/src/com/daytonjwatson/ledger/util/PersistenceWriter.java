@@ -0,0 +1,139 @@
+package com.daytonjwatson.ledger.util;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+public class PersistenceWriter {
+	private final JavaPlugin plugin;
+	private final Map<File, PendingWrite> pending = new LinkedHashMap<>();
+	private final Thread thread;
+	private PendingWrite active;
+	private boolean running = true;
+	private long written;
+	private long coalesced;
+
+	public PersistenceWriter(JavaPlugin plugin) {
+		this.plugin = plugin;
+		this.thread = new Thread(this::run, "Ledger-Writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public CompletableFuture<Void> submit(File target, byte[] data) {
+		synchronized (this) {
+			if (running) {
+				PendingWrite existing = pending.get(target);
+				if (existing != null) {
+					existing.data = data;
+					coalesced++;
+					return existing.future;
+				}
+				PendingWrite write = new PendingWrite(target, data);
+				pending.put(target, write);
+				notifyAll();
+				return write.future;
+			}
+		}
+		PendingWrite write = new PendingWrite(target, data);
+		perform(write, data);
+		return write.future;
+	}
+
+	public synchronized void flush() {
+		boolean interrupted = false;
+		while (!pending.isEmpty() || active != null) {
+			try {
+				wait();
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void close() {
+		flush();
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public synchronized Stats getStats() {
+		return new Stats(written, coalesced, pending.size());
+	}
+
+	private void run() {
+		while (true) {
+			PendingWrite write;
+			byte[] data;
+			synchronized (this) {
+				while (pending.isEmpty() && running) {
+					try {
+						wait();
+					} catch (InterruptedException ex) {
+						running = false;
+					}
+				}
+				if (pending.isEmpty()) {
+					return;
+				}
+				Iterator<PendingWrite> iterator = pending.values().iterator();
+				write = iterator.next();
+				iterator.remove();
+				data = write.data;
+				active = write;
+			}
+			try {
+				perform(write, data);
+			} finally {
+				synchronized (this) {
+					active = null;
+					written++;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	private void perform(PendingWrite write, byte[] data) {
+		try {
+			AtomicFileWriter.writeAtomically(write.target, data);
+			write.future.complete(null);
+		} catch (IOException e) {
+			plugin.getLogger().warning("Failed to save " + write.target.getName() + ": " + e.getMessage());
+			write.future.completeExceptionally(e);
+		} catch (Throwable t) {
+			plugin.getLogger().log(Level.SEVERE, "Unexpected error saving " + write.target.getName(), t);
+			write.future.completeExceptionally(t);
+		}
+	}
+
+	public record Stats(long written, long coalesced, int pending) {
+	}
+
+	private static class PendingWrite {
+		private final File target;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		private byte[] data;
+
+		private PendingWrite(File target, byte[] data) {
+			this.target = target;
+			this.data = data;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.daytonjwatson.ledger.util;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+
+public final class YamlFiles {
+	private YamlFiles() {
+	}
+
+	public static YamlConfiguration load(File file, Logger logger) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+			YamlConfiguration yaml = new YamlConfiguration();
+			yaml.loadFromString(content);
+			return yaml;
+		} catch (IOException | InvalidConfigurationException e) {
+			logger.warning("Failed to load " + file.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	public static YamlConfiguration loadWithBackup(File file, Logger logger) {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		if (tmp.exists() && !tmp.delete()) {
+			logger.warning("Unable to delete stale temp file: " + tmp.getName());
+		}
+		YamlConfiguration primary = load(file, logger);
+		if (primary != null && !primary.getKeys(false).isEmpty()) {
+			return primary;
+		}
+		YamlConfiguration backup = load(new File(file.getParentFile(), file.getName() + ".bak"), logger);
+		if (backup != null) {
+			return backup;
+		}
+		return primary;
+	}
+}
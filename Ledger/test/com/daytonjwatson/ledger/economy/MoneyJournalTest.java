@@ -0,0 +1,176 @@
+package com.daytonjwatson.ledger.economy;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MoneyJournalTest {
+	private static final UUID PLAYER = new UUID(1L, 2L);
+
+	@TempDir
+	File dataFolder;
+
+	private JavaPlugin plugin;
+
+	@BeforeEach
+	void setUp() {
+		plugin = mock(JavaPlugin.class);
+		when(plugin.getDataFolder()).thenReturn(dataFolder);
+		when(plugin.getLogger()).thenReturn(Logger.getLogger("MoneyJournalTest"));
+	}
+
+	@Test
+	void replaysFlushedRecordsInOrder() {
+		MoneyJournal journal = new MoneyJournal(plugin);
+		journal.replay(0L, record -> {
+		});
+		journal.append(MoneyJournal.CARRIED_DELTA, PLAYER, 50L, null);
+		journal.append(MoneyJournal.BANKED_DELTA, PLAYER, -20L, null);
+		journal.rotate();
+		journal.append(MoneyJournal.UPGRADE_LEVEL, PLAYER, 3L, "barter");
+		journal.append(MoneyJournal.SPECIALIZATION, PLAYER, 0L, null);
+		journal.close();
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		assertEquals(4L, new MoneyJournal(plugin).replay(0L, records::add));
+		assertEquals(List.of(1L, 2L, 3L, 4L), records.stream().map(MoneyJournal.Record::sequence).toList());
+		assertEquals(MoneyJournal.BANKED_DELTA, records.get(1).type());
+		assertEquals(-20L, records.get(1).value());
+		assertEquals("barter", records.get(2).text());
+		assertNull(records.get(3).text());
+		assertEquals(PLAYER, records.get(3).uuid());
+	}
+
+	@Test
+	void skipsRecordsCoveredBySnapshot() {
+		writeRecords(5);
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		assertEquals(5L, new MoneyJournal(plugin).replay(3L, records::add));
+		assertEquals(List.of(4L, 5L), records.stream().map(MoneyJournal.Record::sequence).toList());
+	}
+
+	@Test
+	void continuesSequenceAfterReplay() {
+		writeRecords(3);
+		MoneyJournal journal = new MoneyJournal(plugin);
+		journal.replay(0L, record -> {
+		});
+		journal.append(MoneyJournal.CARRIED_DELTA, PLAYER, 1L, null);
+
+		assertEquals(4L, journal.getLastSequence());
+	}
+
+	@Test
+	void ignoresATruncatedTail() throws IOException {
+		writeRecords(3);
+		File segment = segments().get(0);
+		try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		assertEquals(2L, new MoneyJournal(plugin).replay(0L, records::add));
+		assertEquals(2, records.size());
+		assertTrue(new File(segment.getParentFile(), segment.getName() + ".damaged").exists());
+	}
+
+	@Test
+	void stopsAtAChecksumMismatchAndSetsLaterSegmentsAside() throws IOException {
+		MoneyJournal writer = new MoneyJournal(plugin);
+		writer.replay(0L, record -> {
+		});
+		for (int i = 0; i < 3; i++) {
+			writer.append(MoneyJournal.CARRIED_DELTA, PLAYER, i, null);
+		}
+		writer.rotate();
+		writer.flush();
+		for (int i = 0; i < 2; i++) {
+			writer.append(MoneyJournal.CARRIED_DELTA, PLAYER, i, null);
+		}
+		writer.close();
+		List<File> written = segments();
+		assertEquals(2, written.size());
+		try (RandomAccessFile file = new RandomAccessFile(written.get(0), "rw")) {
+			long offset = file.length() - 6;
+			file.seek(offset);
+			int value = file.read();
+			file.seek(offset);
+			file.write(value ^ 0xFF);
+		}
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		assertEquals(2L, new MoneyJournal(plugin).replay(0L, records::add));
+		assertEquals(2, records.size());
+		assertTrue(segments().isEmpty());
+		assertTrue(new File(written.get(0).getParentFile(), written.get(0).getName() + ".damaged").exists());
+		assertTrue(new File(written.get(1).getParentFile(), written.get(1).getName() + ".skipped").exists());
+	}
+
+	@Test
+	void stopsAtASequenceGap() {
+		writeRecords(2);
+		MoneyJournal later = new MoneyJournal(plugin);
+		later.advanceTo(10L);
+		later.append(MoneyJournal.CARRIED_DELTA, PLAYER, 1L, null);
+		later.close();
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		assertEquals(2L, new MoneyJournal(plugin).replay(0L, records::add));
+		assertEquals(2, records.size());
+		assertFalse(segments().stream().anyMatch(file -> file.getName().contains("00000000000000000011")));
+	}
+
+	@Test
+	void discardDeletesSegmentsThroughTheSnapshot() {
+		MoneyJournal journal = new MoneyJournal(plugin);
+		journal.replay(0L, record -> {
+		});
+		journal.append(MoneyJournal.CARRIED_DELTA, PLAYER, 1L, null);
+		long sealed = journal.rotate();
+		journal.append(MoneyJournal.CARRIED_DELTA, PLAYER, 2L, null);
+		journal.discardThrough(sealed);
+		journal.close();
+
+		List<MoneyJournal.Record> records = new ArrayList<>();
+		new MoneyJournal(plugin).replay(sealed, records::add);
+		assertEquals(1, segments().size());
+		assertEquals(List.of(2L), records.stream().map(MoneyJournal.Record::sequence).toList());
+	}
+
+	private void writeRecords(int count) {
+		MoneyJournal journal = new MoneyJournal(plugin);
+		journal.replay(0L, record -> {
+		});
+		for (int i = 0; i < count; i++) {
+			journal.append(MoneyJournal.CARRIED_DELTA, PLAYER, i + 1L, null);
+		}
+		journal.close();
+	}
+
+	private List<File> segments() {
+		File[] files = new File(dataFolder, "journal").listFiles((dir, name) -> name.endsWith(".journal"));
+		if (files == null) {
+			return List.of();
+		}
+		Arrays.sort(files);
+		return Arrays.asList(files);
+	}
+}
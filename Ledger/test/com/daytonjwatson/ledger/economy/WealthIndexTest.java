@@ -0,0 +1,120 @@
+package com.daytonjwatson.ledger.economy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WealthIndexTest {
+	@Test
+	void ranksByTotalDescending() {
+		WealthIndex index = new WealthIndex();
+		UUID poor = new UUID(0L, 1L);
+		UUID rich = new UUID(0L, 2L);
+		UUID middle = new UUID(0L, 3L);
+		index.update(poor, 10L);
+		index.update(rich, 1000L);
+		index.update(middle, 500L);
+
+		assertEquals(1, index.rank(rich));
+		assertEquals(2, index.rank(middle));
+		assertEquals(3, index.rank(poor));
+		assertEquals(List.of(new WealthIndex.Entry(rich, 1000L), new WealthIndex.Entry(middle, 500L),
+			new WealthIndex.Entry(poor, 10L)), index.page(0, 10));
+	}
+
+	@Test
+	void breaksTiesByUuid() {
+		WealthIndex index = new WealthIndex();
+		UUID first = new UUID(0L, 1L);
+		UUID second = new UUID(0L, 2L);
+		index.update(second, 100L);
+		index.update(first, 100L);
+
+		assertEquals(1, index.rank(first));
+		assertEquals(2, index.rank(second));
+	}
+
+	@Test
+	void updateMovesAnExistingEntry() {
+		WealthIndex index = new WealthIndex();
+		UUID a = new UUID(0L, 1L);
+		UUID b = new UUID(0L, 2L);
+		index.update(a, 100L);
+		index.update(b, 200L);
+		index.update(a, 300L);
+
+		assertEquals(2, index.size());
+		assertEquals(1, index.rank(a));
+		assertEquals(2, index.rank(b));
+	}
+
+	@Test
+	void nonPositiveTotalsAreRemoved() {
+		WealthIndex index = new WealthIndex();
+		UUID a = new UUID(0L, 1L);
+		index.update(a, 100L);
+		index.update(a, 0L);
+
+		assertEquals(0, index.size());
+		assertEquals(0, index.rank(a));
+		assertTrue(index.totals().isEmpty());
+
+		index.update(a, -5L);
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void pageClampsToBounds() {
+		WealthIndex index = new WealthIndex();
+		for (int i = 1; i <= 5; i++) {
+			index.update(new UUID(0L, i), i);
+		}
+
+		assertEquals(2, index.page(-3, 5).size());
+		assertEquals(2, index.page(3, 10).size());
+		assertEquals(1L, index.page(4, 1).get(0).total());
+		assertTrue(index.page(5, 10).isEmpty());
+		assertTrue(index.page(0, 0).isEmpty());
+	}
+
+	@Test
+	void matchesSortedOrderUnderRandomUpdates() {
+		WealthIndex index = new WealthIndex();
+		Map<UUID, Long> expected = new HashMap<>();
+		Random random = new Random(42L);
+		List<UUID> players = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			players.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		for (int step = 0; step < 5000; step++) {
+			UUID uuid = players.get(random.nextInt(players.size()));
+			long total = random.nextInt(50) - 5;
+			index.update(uuid, total);
+			if (total > 0) {
+				expected.put(uuid, total);
+			} else {
+				expected.remove(uuid);
+			}
+		}
+
+		List<WealthIndex.Entry> sorted = new ArrayList<>();
+		expected.forEach((uuid, total) -> sorted.add(new WealthIndex.Entry(uuid, total)));
+		sorted.sort(Comparator.comparingLong(WealthIndex.Entry::total).reversed().thenComparing(WealthIndex.Entry::uuid));
+
+		assertEquals(sorted.size(), index.size());
+		assertEquals(sorted, index.page(0, sorted.size()));
+		for (int i = 0; i < sorted.size(); i++) {
+			assertEquals(i + 1, index.rank(sorted.get(i).uuid()));
+		}
+		assertEquals(expected, index.totals());
+	}
+}
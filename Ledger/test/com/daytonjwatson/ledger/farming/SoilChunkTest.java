@@ -0,0 +1,151 @@
+package com.daytonjwatson.ledger.farming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SoilChunkTest {
+	private static final SoilChunk.ExpiryFunction EXPIRE_AT_TOUCH = (fatigue, lastUpdate, lastTouched) -> lastTouched;
+
+	@Test
+	void packsLocalCoordinatesAndSignedHeight() {
+		for (int y : new int[] {-64, -1, 0, 63, 319}) {
+			int key = SoilChunk.pack(-17, y, 33);
+			assertEquals(15, SoilChunk.localX(key));
+			assertEquals(1, SoilChunk.localZ(key));
+			assertEquals(y, SoilChunk.blockY(key));
+		}
+	}
+
+	@Test
+	void findsEveryKeyAcrossRehashes() {
+		SoilChunk chunk = new SoilChunk();
+		Set<Integer> keys = new HashSet<>();
+		for (int x = 0; x < 16; x++) {
+			for (int z = 0; z < 16; z++) {
+				int key = SoilChunk.pack(x, 64 + (x + z) % 3, z);
+				keys.add(key);
+				chunk.insert(key, 0);
+			}
+		}
+
+		assertEquals(keys.size(), chunk.size());
+		assertTrue(chunk.size() * 4 <= chunk.capacity() * 3);
+		for (int key : keys) {
+			int slot = chunk.find(key);
+			assertTrue(slot >= 0);
+			assertEquals(key, chunk.keyAt(slot));
+		}
+		assertEquals(-1, chunk.find(SoilChunk.pack(0, 200, 0)));
+	}
+
+	@Test
+	void insertReturnsTheExistingSlot() {
+		SoilChunk chunk = new SoilChunk();
+		int key = SoilChunk.pack(1, 70, 2);
+		int slot = chunk.insert(key, 5);
+
+		assertEquals(slot, chunk.insert(key, 9));
+		assertEquals(1, chunk.size());
+		assertEquals(5, chunk.lastUpdateAt(slot));
+	}
+
+	@Test
+	void roundTripsThroughBytes() {
+		SoilChunk chunk = new SoilChunk();
+		for (int i = 0; i < 20; i++) {
+			int slot = chunk.insert(SoilChunk.pack(i, -10 + i, 15 - i), 100 + i);
+			chunk.set(slot, i / 10.0f, 100 + i, 200 + i, 200 + i);
+		}
+
+		SoilChunk copy = SoilChunk.fromBytes(chunk.toBytes(), EXPIRE_AT_TOUCH);
+		assertEquals(20, copy.size());
+		assertFalse(copy.isDirty());
+		assertEquals(200, copy.getEarliestExpiry());
+		for (int i = 0; i < 20; i++) {
+			int slot = copy.find(SoilChunk.pack(i, -10 + i, 15 - i));
+			assertEquals(i / 10.0f, copy.fatigueAt(slot));
+			assertEquals(100 + i, copy.lastUpdateAt(slot));
+			assertEquals(200 + i, copy.lastTouchedAt(slot));
+		}
+	}
+
+	@Test
+	void rejectsMalformedBytes() {
+		SoilChunk chunk = new SoilChunk();
+		chunk.set(chunk.insert(SoilChunk.pack(0, 0, 0), 1), 0.5f, 1, 1, 1);
+		byte[] bytes = chunk.toBytes();
+
+		assertNull(SoilChunk.fromBytes(null, EXPIRE_AT_TOUCH));
+		assertNull(SoilChunk.fromBytes(new byte[4], EXPIRE_AT_TOUCH));
+		assertNull(SoilChunk.fromBytes(Arrays.copyOf(bytes, bytes.length - 1), EXPIRE_AT_TOUCH));
+		bytes[3] = 9;
+		assertNull(SoilChunk.fromBytes(bytes, EXPIRE_AT_TOUCH));
+	}
+
+	@Test
+	void pruneDropsExpiredEntriesAndKeepsProbesIntact() {
+		SoilChunk chunk = new SoilChunk();
+		for (int i = 0; i < 100; i++) {
+			int slot = chunk.insert(SoilChunk.pack(i & 15, i >> 4, 0), 0);
+			chunk.set(slot, 1.0f, 0, i, i);
+		}
+		chunk.markClean();
+
+		chunk.prune(EXPIRE_AT_TOUCH, 50);
+		assertEquals(49, chunk.size());
+		assertTrue(chunk.isDirty());
+		assertEquals(51, chunk.getEarliestExpiry());
+		for (int i = 0; i < 100; i++) {
+			int slot = chunk.find(SoilChunk.pack(i & 15, i >> 4, 0));
+			if (i <= 50) {
+				assertEquals(-1, slot);
+			} else {
+				assertEquals(i, chunk.lastTouchedAt(slot));
+			}
+		}
+	}
+
+	@Test
+	void pruneWithoutExpiriesOnlyRecomputesTheEarliest() {
+		SoilChunk chunk = new SoilChunk();
+		chunk.set(chunk.insert(SoilChunk.pack(0, 0, 0), 0), 1.0f, 0, 10, 1);
+		chunk.markClean();
+
+		chunk.prune(EXPIRE_AT_TOUCH, 5);
+		assertEquals(1, chunk.size());
+		assertFalse(chunk.isDirty());
+		assertEquals(10, chunk.getEarliestExpiry());
+	}
+
+	@Test
+	void mergeMissingKeepsExistingEntries() {
+		int shared = SoilChunk.pack(1, 1, 1);
+		int extra = SoilChunk.pack(2, 2, 2);
+		SoilChunk target = new SoilChunk();
+		target.set(target.insert(shared, 0), 0.25f, 0, 50, 50);
+		SoilChunk source = new SoilChunk();
+		source.set(source.insert(shared, 0), 0.75f, 0, 60, 60);
+		source.set(source.insert(extra, 0), 0.5f, 0, 70, 70);
+
+		target.mergeMissing(source, EXPIRE_AT_TOUCH);
+		assertEquals(2, target.size());
+		assertEquals(0.25f, target.fatigueAt(target.find(shared)));
+		assertEquals(0.5f, target.fatigueAt(target.find(extra)));
+	}
+
+	@Test
+	void clampsSecondsToTheEpoch() {
+		assertEquals(0, SoilChunk.toSeconds(0L));
+		assertEquals(Integer.MAX_VALUE, SoilChunk.toSeconds(Long.MAX_VALUE));
+		long millis = SoilChunk.toMillis(12345);
+		assertEquals(12345, SoilChunk.toSeconds(millis));
+	}
+}
@@ -0,0 +1,60 @@
+package com.daytonjwatson.ledger.market;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecayClockTest {
+	private static final long HOUR_MS = 3_600_000L;
+
+	@Test
+	void halvesEveryHalfLife() {
+		DecayClock clock = new DecayClock(2.0, 0L);
+
+		clock.tick(2 * HOUR_MS);
+		assertEquals(0.5, clock.getFactor(), 1e-12);
+		clock.tick(4 * HOUR_MS);
+		assertEquals(0.25, clock.getFactor(), 1e-12);
+	}
+
+	@Test
+	void ignoresClockSkew() {
+		DecayClock clock = new DecayClock(1.0, 10_000L);
+
+		clock.tick(5_000L);
+		assertEquals(1.0, clock.getFactor());
+		assertEquals(1.0, clock.factorFor(-1L));
+	}
+
+	@Test
+	void storedValuesDecayWithTheFactor() {
+		DecayClock clock = new DecayClock(1.0, 0L);
+		double stored = clock.toStored(80.0);
+
+		clock.tick(HOUR_MS);
+		assertEquals(40.0, clock.fromStored(stored), 1e-9);
+	}
+
+	@Test
+	void renormalizesOnceTheFactorGetsSmall() {
+		DecayClock clock = new DecayClock(1.0, 0L);
+		double stored = clock.toStored(1_000_000.0);
+
+		clock.tick(19 * HOUR_MS);
+		assertFalse(clock.needsRenormalize());
+		clock.tick(21 * HOUR_MS);
+		assertTrue(clock.needsRenormalize());
+
+		double expected = clock.fromStored(stored);
+		double scale = clock.renormalize(21 * HOUR_MS);
+		assertEquals(21 * HOUR_MS, clock.getEpoch());
+		assertEquals(1.0, clock.getFactor());
+		assertFalse(clock.needsRenormalize());
+		assertEquals(expected, clock.fromStored(stored * scale), 1e-9);
+
+		clock.tick(22 * HOUR_MS);
+		assertEquals(expected / 2.0, clock.fromStored(stored * scale), 1e-9);
+	}
+}
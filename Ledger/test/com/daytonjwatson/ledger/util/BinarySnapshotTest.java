@@ -0,0 +1,118 @@
+package com.daytonjwatson.ledger.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotTest {
+	private static final int FORMAT = 7;
+
+	@TempDir
+	File directory;
+
+	@Test
+	void roundTripsRecords() throws IOException {
+		UUID uuid = UUID.randomUUID();
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(FORMAT, 3);
+		out.beginRecord().writeLong(42L).endRecord();
+		out.beginRecord().writeUuid(uuid).writeInt(-7).writeDouble(1.5).writeString("wheat").writeString(null).endRecord();
+		File file = write("round-trip.dat", out.toByteArray());
+
+		BinarySnapshot.Reader in = BinarySnapshot.Reader.open(file, FORMAT);
+		assertEquals(3, in.getVersion());
+		assertTrue(in.next());
+		assertEquals(42L, in.readLong());
+		assertTrue(in.next());
+		assertEquals(uuid, in.readUuid());
+		assertEquals(-7, in.readInt());
+		assertEquals(1.5, in.readDouble());
+		assertEquals("wheat", in.readString());
+		assertNull(in.readString());
+		assertFalse(in.next());
+	}
+
+	@Test
+	void growsPastTheInitialBuffer() throws IOException {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(FORMAT, 1);
+		String large = "x".repeat(10_000);
+		for (int i = 0; i < 100; i++) {
+			out.beginRecord().writeInt(i).writeString(large).endRecord();
+		}
+		File file = write("large.dat", out.toByteArray());
+
+		BinarySnapshot.Reader in = BinarySnapshot.Reader.open(file, FORMAT);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(in.next());
+			assertEquals(i, in.readInt());
+			assertEquals(large, in.readString());
+		}
+		assertFalse(in.next());
+	}
+
+	@Test
+	void rejectsFlippedBytes() throws IOException {
+		byte[] bytes = sample();
+		for (int offset = 0; offset < bytes.length; offset++) {
+			byte[] corrupt = bytes.clone();
+			corrupt[offset] ^= 0x10;
+			File file = write("corrupt-" + offset + ".dat", corrupt);
+			assertThrows(IOException.class, () -> BinarySnapshot.Reader.open(file, FORMAT), "offset " + offset);
+		}
+	}
+
+	@Test
+	void rejectsTruncatedFiles() throws IOException {
+		byte[] bytes = sample();
+		for (int length = 0; length < bytes.length; length++) {
+			File file = write("truncated-" + length + ".dat", Arrays.copyOf(bytes, length));
+			assertThrows(IOException.class, () -> BinarySnapshot.Reader.open(file, FORMAT), "length " + length);
+		}
+	}
+
+	@Test
+	void rejectsOtherFormats() throws IOException {
+		File file = write("format.dat", sample());
+		assertThrows(IOException.class, () -> BinarySnapshot.Reader.open(file, FORMAT + 1));
+	}
+
+	@Test
+	void reportsReadsPastTheRecord() throws IOException {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(FORMAT, 1);
+		out.beginRecord().writeInt(1).endRecord();
+		BinarySnapshot.Reader in = BinarySnapshot.Reader.open(write("short.dat", out.toByteArray()), FORMAT);
+
+		assertTrue(in.next());
+		assertEquals(1, in.readInt());
+		assertThrows(IOException.class, in::readLong);
+	}
+
+	@Test
+	void acceptsAnEmptySnapshot() throws IOException {
+		File file = write("empty.dat", new BinarySnapshot.Writer(FORMAT, 1).toByteArray());
+		assertFalse(BinarySnapshot.Reader.open(file, FORMAT).next());
+	}
+
+	private byte[] sample() {
+		BinarySnapshot.Writer out = new BinarySnapshot.Writer(FORMAT, 1);
+		out.beginRecord().writeLong(9L).writeString("ore").endRecord();
+		out.beginRecord().writeInt(3).endRecord();
+		return out.toByteArray();
+	}
+
+	private File write(String name, byte[] bytes) throws IOException {
+		File file = new File(directory, name);
+		Files.write(file.toPath(), bytes);
+		return file;
+	}
+}
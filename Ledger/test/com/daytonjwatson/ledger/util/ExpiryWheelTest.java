@@ -0,0 +1,82 @@
+package com.daytonjwatson.ledger.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiryWheelTest {
+	@Test
+	void firesOnlyOnceDue() {
+		ExpiryWheel<String> wheel = new ExpiryWheel<>(10, 8, 100);
+		wheel.schedule("a", 125);
+		List<String> fired = new ArrayList<>();
+
+		assertEquals(0, wheel.advance(120, scheduled -> fired.add(scheduled.value())));
+		assertEquals(0, wheel.advance(124, scheduled -> fired.add(scheduled.value())));
+		assertEquals(1, wheel.advance(125, scheduled -> fired.add(scheduled.value())));
+		assertEquals(List.of("a"), fired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void keepsEntriesBeyondOneRevolution() {
+		ExpiryWheel<String> wheel = new ExpiryWheel<>(10, 4, 0);
+		wheel.schedule("far", 95);
+		wheel.schedule("near", 15);
+		List<String> fired = new ArrayList<>();
+
+		for (int now = 0; now < 95; now += 5) {
+			wheel.advance(now, scheduled -> fired.add(scheduled.value()));
+		}
+		assertEquals(List.of("near"), fired);
+		assertEquals(1, wheel.size());
+
+		wheel.advance(95, scheduled -> fired.add(scheduled.value()));
+		assertEquals(List.of("near", "far"), fired);
+	}
+
+	@Test
+	void catchesUpAfterALongGap() {
+		ExpiryWheel<Integer> wheel = new ExpiryWheel<>(1, 16, 0);
+		for (int i = 1; i <= 100; i++) {
+			wheel.schedule(i, i);
+		}
+		List<Integer> fired = new ArrayList<>();
+
+		assertEquals(100, wheel.advance(1000, scheduled -> fired.add(scheduled.value())));
+		assertEquals(100, fired.size());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void schedulesPastDeadlinesIntoTheNextSlot() {
+		ExpiryWheel<String> wheel = new ExpiryWheel<>(10, 8, 200);
+		wheel.advance(200, scheduled -> {
+		});
+		wheel.schedule("late", 150);
+		List<String> fired = new ArrayList<>();
+
+		wheel.advance(205, scheduled -> fired.add(scheduled.value()));
+		assertEquals(List.of("late"), fired);
+	}
+
+	@Test
+	void leavesLaterEntriesInTheCurrentSlot() {
+		ExpiryWheel<String> wheel = new ExpiryWheel<>(10, 8, 0);
+		wheel.schedule("early", 41);
+		wheel.schedule("late", 48);
+		List<String> fired = new ArrayList<>();
+
+		wheel.advance(44, scheduled -> fired.add(scheduled.value()));
+		assertEquals(List.of("early"), fired);
+		wheel.advance(47, scheduled -> fired.add(scheduled.value()));
+		assertEquals(List.of("early"), fired);
+		wheel.advance(48, scheduled -> fired.add(scheduled.value()));
+		assertTrue(fired.contains("late"));
+		assertEquals(0, wheel.size());
+	}
+}